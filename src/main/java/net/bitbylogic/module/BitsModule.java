@@ -4,21 +4,29 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import net.bitbylogic.module.loader.ModuleClassLoader;
 import net.bitbylogic.module.scheduler.ModuleScheduler;
-import net.bitbylogic.module.task.ModulePendingTask;
 import net.bitbylogic.utils.color.ColorUtil;
 import net.bitbylogic.utils.config.configurable.Configurable;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 
@@ -46,6 +54,16 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
 
     private YamlConfiguration config;
 
+    /**
+     * How long the constructor spent loading the configuration file and config paths.
+     */
+    @Setter(AccessLevel.NONE)
+    private long configLoadNanos;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Set<CompletableFuture<?>> awaiting = ConcurrentHashMap.newKeySet();
+
     public BitsModule(JavaPlugin plugin, ModuleManager moduleManager) {
         this.plugin = plugin;
         this.moduleManager = moduleManager;
@@ -59,10 +77,14 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
         this.configFile = new File(getDataFolder() + File.separator + "config.yml");
         this.configurables = new ArrayList<>();
 
+        long configStartTime = System.nanoTime();
+
         loadConfiguration();
 
         setConfigFile(configFile);
         loadConfigPaths();
+
+        this.configLoadNanos = System.nanoTime() - configStartTime;
     }
 
     private void loadConfiguration() {
@@ -70,16 +92,39 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
         String moduleDir = moduleData.id().toLowerCase(Locale.ROOT).replace(" ", "_");
 
         if (!configFile.exists()) {
-            InputStream configStream = plugin.getResource(moduleDir + "/config.yml");
+            String resourcePath = moduleDir + "/config.yml";
 
-            if (configStream != null) {
-                plugin.saveResource(moduleDir + "/config.yml", false);
+            if (getClass().getClassLoader() instanceof ModuleClassLoader moduleClassLoader) {
+                saveDefaultConfig(moduleClassLoader.findResource(resourcePath));
+            } else if (plugin.getResource(resourcePath) != null) {
+                plugin.saveResource(resourcePath, false);
             }
         }
 
         config = YamlConfiguration.loadConfiguration(configFile);
     }
 
+    /**
+     * Copies a default config bundled in a module jar, which the host plugin's
+     * {@link JavaPlugin#saveResource(String, boolean)} can't see.
+     */
+    private void saveDefaultConfig(@Nullable URL resource) {
+        if (resource == null) {
+            return;
+        }
+
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        try (InputStream configStream = resource.openStream()) {
+            Files.copy(configStream, configFile.toPath());
+        } catch (IOException e) {
+            log(Level.SEVERE, "Unable to save default configuration file.");
+            e.printStackTrace();
+        }
+    }
+
     public void reloadConfig() {
         config = YamlConfiguration.loadConfiguration(configFile);
     }
@@ -137,7 +182,7 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
             this.listeners.add(listener);
 
             if(enabled) {
-                Bukkit.getServer().getPluginManager().registerEvents(listener, plugin);
+                moduleManager.registerListener(this, listener);
             }
 
             debug(Level.INFO, String.format("Successfully registered listener: %s", listener.getClass().getSimpleName()));
@@ -250,22 +295,55 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
         Bukkit.broadcast("(" + getModuleData().name() + ") [DEBUG]: " + message, "apibylogic.module.debuglog");
     }
 
-    public <T extends BitsModule> void addDependencyTask(Class<T> dependency, Consumer<T> consumer) {
-        BitsModule existingModule = (BitsModule) moduleManager.getDependencyManager().getDependencies().get(dependency);
+    /**
+     * Returns a future that completes with the given module once it is registered, see
+     * {@link ModuleManager#awaitModule(Class)}. If this module is disabled before then, the
+     * future fails with a {@link CancellationException}.
+     *
+     * @param dependency The module class to wait for.
+     * @return A future for the module.
+     */
+    public <T extends BitsModule> CompletableFuture<T> awaitModule(@NonNull Class<T> dependency) {
+        CompletableFuture<T> future = moduleManager.awaitModule(dependency);
 
-        if (existingModule != null) {
-            consumer.accept(dependency.cast(existingModule));
-            return;
+        if (future.isDone()) {
+            return future;
+        }
+
+        awaiting.add(future);
+        future.whenComplete((module, throwable) -> awaiting.remove(future));
+        return future;
+    }
+
+    /**
+     * Fails every future returned by {@link #awaitModule(Class)} that is still waiting.
+     */
+    void cancelAwaiting() {
+        for (CompletableFuture<?> future : awaiting) {
+            future.completeExceptionally(new CancellationException("Module '" + getModuleData().id() + "' was disabled"));
         }
 
-        moduleManager.getPendingTasksByModule()
-                .computeIfAbsent(dependency, k -> new ArrayList<>())
-                .add(new ModulePendingTask<T>(dependency) {
-                    @Override
-                    public void accept(T module) {
-                        consumer.accept(module);
-                    }
-                });
+        awaiting.clear();
+    }
+
+    /**
+     * Runs the consumer once the given module is registered.
+     *
+     * @deprecated Use {@link #awaitModule(Class)}, which can be composed, timed out and
+     * is cancelled when this module is disabled.
+     */
+    @Deprecated
+    public <T extends BitsModule> void addDependencyTask(Class<T> dependency, Consumer<T> consumer) {
+        awaitModule(dependency).thenAccept(consumer).exceptionally(throwable -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+            if (!(cause instanceof CancellationException)) {
+                log(Level.SEVERE, "Dependency task for " + dependency.getSimpleName() + " failed: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+
+            return null;
+        });
     }
 
     @Override
@@ -276,20 +354,6 @@ public abstract class BitsModule extends Configurable implements ModuleInterface
 
     public void setDebug(boolean debug) {
         this.debug = debug;
-
-        List<String> debugModules = plugin.getConfig().getStringList("Debug-Modules");
-
-        if(debugModules.contains(getModuleData().id()) && debug || !debugModules.contains(getModuleData().id()) && !debug) {
-            return;
-        }
-
-        if(!debug) {
-            debugModules.remove(getModuleData().id());
-        } else {
-            debugModules.add(getModuleData().id());
-        }
-
-        plugin.getConfig().set("Debug-Modules", debugModules);
-        plugin.saveConfig();
+        moduleManager.getStateStore().setDebug(getModuleData().id(), debug);
     }
 }
@@ -0,0 +1,177 @@
+package net.bitbylogic.module;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.module.message.ModuleMessages;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * The placeholder registered for a lazy module until it is activated.
+ * <p></p>
+ * It holds no module instance, only a command in the server's command map for each
+ * declared command label and a listener for each declared event type. The first time
+ * any of them fires the stub removes itself and hands control to the manager, which
+ * constructs and enables the real module.
+ */
+class LazyModuleStub implements Listener {
+
+    @Getter
+    private final Class<? extends BitsModule> moduleClass;
+
+    @Getter
+    private final ModuleData moduleData;
+
+    private final JavaPlugin plugin;
+    private final Function<String, BitsModule> activator;
+
+    private final List<Command> commands = new ArrayList<>();
+    private final AtomicBoolean activationQueued = new AtomicBoolean();
+
+    LazyModuleStub(@NonNull JavaPlugin plugin, @NonNull Class<? extends BitsModule> moduleClass,
+                   @NonNull ModuleData moduleData, @NonNull Function<String, BitsModule> activator) {
+        this.plugin = plugin;
+        this.moduleClass = moduleClass;
+        this.moduleData = moduleData;
+        this.activator = activator;
+    }
+
+    /**
+     * Claims the single main-thread activation that may be queued for an off-thread lookup.
+     *
+     * @return {@code true} if no activation was queued yet
+     */
+    boolean markActivationQueued() {
+        return activationQueued.compareAndSet(false, true);
+    }
+
+    void resetActivationQueued() {
+        activationQueued.set(false);
+    }
+
+    /**
+     * Registers the stub commands and event listeners.
+     */
+    void install() {
+        CommandMap commandMap = Bukkit.getCommandMap();
+
+        for (String label : moduleData.commands()) {
+            Command command = new StubCommand(label.toLowerCase(Locale.ROOT));
+            commandMap.register(plugin.getName().toLowerCase(Locale.ROOT), command);
+            commands.add(command);
+        }
+
+        for (Class<? extends Event> eventClass : moduleData.events()) {
+            Bukkit.getPluginManager().registerEvent(eventClass, this, EventPriority.LOWEST, (listener, event) -> {
+                if (eventClass.isInstance(event)) {
+                    activateAndReplay(event);
+                }
+            }, plugin);
+        }
+    }
+
+    /**
+     * Removes the stub commands and event listeners.
+     */
+    void uninstall() {
+        CommandMap commandMap = Bukkit.getCommandMap();
+
+        for (Command command : commands) {
+            command.unregister(commandMap);
+            commandMap.getKnownCommands().values().removeIf(known -> known == command);
+        }
+
+        commands.clear();
+        HandlerList.unregisterAll(this);
+    }
+
+    /**
+     * Activates the module and hands it the event that triggered the activation. The event's
+     * listeners were resolved before the module registered its own, so they are called directly.
+     * <p></p>
+     * Events called off the main thread only queue the activation through the scheduler platform,
+     * blocking on the main thread isn't possible on every server. Such an event has been handled
+     * by the time the module exists, so it isn't replayed.
+     */
+    private void activateAndReplay(Event event) {
+        String trigger = "event " + event.getEventName();
+
+        if (!Bukkit.isPrimaryThread()) {
+            activator.apply(trigger);
+            return;
+        }
+
+        BitsModule module = activator.apply(trigger);
+
+        if (module == null || !module.isEnabled()) {
+            return;
+        }
+
+        List<Listener> moduleListeners = new ArrayList<>(module.getListeners());
+        moduleListeners.add(module);
+
+        for (RegisteredListener registered : event.getHandlers().getRegisteredListeners()) {
+            if (!moduleListeners.contains(registered.getListener())) {
+                continue;
+            }
+
+            try {
+                registered.callEvent(event);
+            } catch (EventException e) {
+                module.log(Level.SEVERE, "Unable to replay " + event.getEventName() + " after lazy activation.");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private class StubCommand extends Command {
+
+        private StubCommand(@NotNull String name) {
+            super(name);
+        }
+
+        /**
+         * Activates the module and runs the command again, now against the module's own command.
+         * If the module couldn't be activated, is waiting for dependencies or is disabled, the
+         * sender is told so instead, since dispatching again could land on this stub once more.
+         */
+        @Override
+        public boolean execute(@NotNull CommandSender sender, @NotNull String commandLabel, @NotNull String[] args) {
+            BitsModule module = activator.apply("command /" + commandLabel);
+
+            if (module == null || !module.isEnabled()) {
+                ModuleMessages.LAZY_ACTIVATION_FAILED.send(sender, Placeholder.unparsed("id", moduleData.id()));
+                return true;
+            }
+
+            String commandLine = args.length == 0 ? commandLabel : commandLabel + " " + String.join(" ", args);
+            return Bukkit.dispatchCommand(sender, commandLine);
+        }
+
+        @Override
+        public @NotNull List<String> tabComplete(@NotNull CommandSender sender, @NotNull String alias, @NotNull String[] args) {
+            return Collections.emptyList();
+        }
+
+    }
+
+}
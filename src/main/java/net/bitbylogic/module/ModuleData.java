@@ -1,18 +1,39 @@
 package net.bitbylogic.module;
 
+import org.bukkit.event.Event;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 /**
  * Represents the metadata of a module with an identifier, name, and description.
  * <p></p>
  * This record is immutable and provides a concise way to store module-related
  * information. Each instance of this record guarantees non-null values for all
  * its components.
+ * <p></p>
+ * A lazy module is only registered as a lightweight stub when it is passed to
+ * {@link ModuleManager#registerModule(Class, ModuleData)}. It is constructed and
+ * enabled the first time one of its declared commands is run, one of its declared
+ * events is called, or it is looked up through the {@link ModuleManager}.
  *
  * @param id          The unique identifier of the module. Must not be null.
  * @param name        The name of the module. Must not be null.
  * @param description A brief description of the module. Must not be null.
+ * @param lazy        Whether the module is activated on demand.
+ * @param commands    The command labels that activate a lazy module. Must not be null.
+ * @param events      The event types that activate a lazy module. Must not be null.
  */
-public record ModuleData(@NotNull String id, @NotNull String name, @NotNull String description) {
+public record ModuleData(@NotNull String id, @NotNull String name, @NotNull String description, boolean lazy,
+                         @NotNull List<String> commands, @NotNull List<Class<? extends Event>> events) {
+
+    public ModuleData {
+        commands = List.copyOf(commands);
+        events = List.copyOf(events);
+    }
+
+    public ModuleData(@NotNull String id, @NotNull String name, @NotNull String description) {
+        this(id, name, description, false, List.of(), List.of());
+    }
 
 }
@@ -0,0 +1,159 @@
+package net.bitbylogic.module;
+
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * Tracks modules that are waiting for dependencies to be registered and releases them as soon
+ * as their last missing dependency arrives.
+ * <p></p>
+ * Each waiting module keeps the set of dependencies it is still missing, and each missing
+ * dependency keeps the modules waiting on it. Registering a dependency therefore only visits
+ * the modules that were waiting on it, and a chain of dependents is resolved in a single pass
+ * as each released module is registered in turn. Cycles between waiting modules are detected
+ * when a module is parked, since such modules can never be released.
+ */
+public class ModuleDependencyResolver {
+
+    private final Map<Class<? extends BitsModule>, PendingModule> pendingByClass = new LinkedHashMap<>();
+    private final Map<Class<?>, Set<Class<? extends BitsModule>>> waitingOn = new HashMap<>();
+
+    /**
+     * Parks a module until all of the given dependencies are registered.
+     *
+     * @param module       the module that can't be registered yet
+     * @param dependencies the module classes it is missing
+     * @return the dependency cycle the module is part of, starting and ending with the module's
+     *         class, or an empty list if there is none
+     */
+    public List<Class<?>> park(@NonNull BitsModule module, @NonNull Collection<Class<?>> dependencies) {
+        Class<? extends BitsModule> moduleClass = module.getClass();
+        PendingModule pending = new PendingModule(module, new LinkedHashSet<>(dependencies));
+
+        pendingByClass.put(moduleClass, pending);
+
+        for (Class<?> dependency : pending.missing) {
+            waitingOn.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(moduleClass);
+        }
+
+        return findCycle(moduleClass);
+    }
+
+    /**
+     * Marks a module class as registered.
+     *
+     * @param registered the class that was just registered
+     * @return the modules whose last missing dependency was the given class, in the order they were parked
+     */
+    public List<BitsModule> resolve(@NonNull Class<?> registered) {
+        Set<Class<? extends BitsModule>> dependents = waitingOn.remove(registered);
+
+        if (dependents == null) {
+            return Collections.emptyList();
+        }
+
+        List<BitsModule> ready = new ArrayList<>();
+
+        for (Class<? extends BitsModule> dependent : dependents) {
+            PendingModule pending = pendingByClass.get(dependent);
+
+            if (pending == null) {
+                continue;
+            }
+
+            pending.missing.remove(registered);
+
+            if (pending.missing.isEmpty()) {
+                pendingByClass.remove(dependent);
+                ready.add(pending.module);
+            }
+        }
+
+        return ready;
+    }
+
+    /**
+     * Stops a module from waiting for its dependencies, for example because its jar was unloaded.
+     *
+     * @param moduleClass the waiting module's class
+     */
+    public void remove(@NonNull Class<? extends BitsModule> moduleClass) {
+        PendingModule pending = pendingByClass.remove(moduleClass);
+
+        if (pending == null) {
+            return;
+        }
+
+        for (Class<?> dependency : pending.missing) {
+            Set<Class<? extends BitsModule>> dependents = waitingOn.get(dependency);
+
+            if (dependents != null && dependents.remove(moduleClass) && dependents.isEmpty()) {
+                waitingOn.remove(dependency);
+            }
+        }
+    }
+
+    public boolean isPending(@NonNull Class<? extends BitsModule> moduleClass) {
+        return pendingByClass.containsKey(moduleClass);
+    }
+
+    /**
+     * @return every waiting module, in the order they were parked
+     */
+    public List<BitsModule> getPendingModules() {
+        List<BitsModule> modules = new ArrayList<>();
+        pendingByClass.values().forEach(pending -> modules.add(pending.module));
+        return modules;
+    }
+
+    /**
+     * @return every waiting module class mapped to the dependencies it is still missing
+     */
+    public Map<Class<? extends BitsModule>, Set<Class<?>>> getPending() {
+        Map<Class<? extends BitsModule>, Set<Class<?>>> pending = new LinkedHashMap<>();
+        pendingByClass.forEach((moduleClass, module) -> pending.put(moduleClass, Collections.unmodifiableSet(new LinkedHashSet<>(module.missing))));
+        return pending;
+    }
+
+    /**
+     * Searches the waiting modules for a chain of missing dependencies that leads back to the given class.
+     */
+    private List<Class<?>> findCycle(Class<? extends BitsModule> start) {
+        Deque<Class<?>> path = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+
+        path.addLast(start);
+
+        if (!findCycle(start, start, path, visited)) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<>(path);
+    }
+
+    private boolean findCycle(Class<?> start, Class<?> current, Deque<Class<?>> path, Set<Class<?>> visited) {
+        PendingModule pending = pendingByClass.get(current);
+
+        if (pending == null || !visited.add(current)) {
+            return false;
+        }
+
+        for (Class<?> dependency : pending.missing) {
+            path.addLast(dependency);
+
+            if (dependency == start || findCycle(start, dependency, path, visited)) {
+                return true;
+            }
+
+            path.removeLast();
+        }
+
+        return false;
+    }
+
+    private record PendingModule(BitsModule module, Set<Class<?>> missing) {
+
+    }
+
+}
@@ -1,25 +1,51 @@
 package net.bitbylogic.module;
 
 import co.aikar.commands.PaperCommandManager;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import net.bitbylogic.module.command.ModulesCommand;
 import net.bitbylogic.module.event.ModuleDisableEvent;
 import net.bitbylogic.module.event.ModuleEnableEvent;
+import net.bitbylogic.module.event.ModuleReloadEvent;
+import net.bitbylogic.module.jfr.ModuleLifecycleEvent;
+import net.bitbylogic.module.jfr.ModuleTimedExecutor;
+import net.bitbylogic.module.loader.ModuleJar;
 import net.bitbylogic.module.message.ModuleMessages;
-import net.bitbylogic.module.scheduler.ModuleTask;
-import net.bitbylogic.module.task.ModulePendingTask;
+import net.bitbylogic.module.scheduler.ModuleSchedulerPlatform;
+import net.bitbylogic.module.scheduler.ModuleTaskWatchdog;
+import net.bitbylogic.module.timing.ModulePhase;
+import net.bitbylogic.module.timing.ModuleTimings;
 import net.bitbylogic.utils.color.ColorUtil;
 import net.bitbylogic.utils.dependency.DependencyManager;
 import net.bitbylogic.utils.message.messages.Messages;
 import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import java.util.logging.Level;
 
 @Getter
@@ -30,17 +56,67 @@ public class ModuleManager {
     private final DependencyManager dependencyManager;
     private final PaperCommandManager commandManager;
 
+    private final ModuleStateStore stateStore;
+
+    /**
+     * Read-only views of the module ids recorded as disabled or in debug mode, see {@link ModuleStateStore}.
+     */
     private final List<String> disabledModules;
     private final List<String> debugModules;
 
-    private final Map<Class<? extends BitsModule>, BitsModule> modulesByClass = new HashMap<>();
-    private final HashMap<String, BitsModule> modulesById = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final ModuleRegistry registry = new ModuleRegistry();
+
+    private final ModuleDependencyResolver dependencyResolver = new ModuleDependencyResolver();
+
+    /**
+     * How many lazy modules have been activated, and the total time their activation took.
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger lazyActivationCount = new AtomicInteger();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong lazyActivationNanos = new AtomicLong();
 
-    private final HashMap<Class<?>, List<Class<?>>> pendingModules = new HashMap<>();
+    /**
+     * Futures handed out by {@link #awaitModule(Class)} for modules that aren't registered yet.
+     * A future leaves its set as soon as it completes, including by timing out or being
+     * cancelled, and a class's entry is dropped once nobody is waiting on it anymore.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Class<? extends BitsModule>, Set<CompletableFuture<?>>> moduleWaiters = new ConcurrentHashMap<>();
+
+    private final ModuleTaskWatchdog taskWatchdog = new ModuleTaskWatchdog();
+
+    private final ModuleTimings timings;
 
-    private final Set<ModuleTask> cleanupQueue = ConcurrentHashMap.newKeySet();
+    /**
+     * The folder external module jars are loaded from, and the jars loaded from it by lowercase file name.
+     */
+    private final File modulesFolder;
+    private final Map<String, ModuleJar> moduleJars = new HashMap<>();
 
-    private final Map<Class<? extends BitsModule>, List<ModulePendingTask<? extends BitsModule>>> pendingTasksByModule = new HashMap<>();
+    /**
+     * Whether modules registered together are constructed in parallel on virtual threads.
+     * Off by default; only enable this if no module constructor touches server state that
+     * must be accessed from the main thread.
+     */
+    @Setter
+    private boolean parallelConstruction = false;
+
+    /**
+     * Whether {@link #shutdownAll()} runs independent modules' {@link BitsModule#onDisable()}
+     * in parallel on virtual threads. Off by default; only enable this if no module touches
+     * server state in {@code onDisable} that must be accessed from the main thread.
+     */
+    @Setter
+    private boolean parallelShutdown = false;
+
+    /**
+     * How long {@link #shutdownAll()} waits for every module to disable, in milliseconds.
+     */
+    @Setter
+    private long shutdownTimeoutMillis = 10_000L;
 
     public ModuleManager(@NotNull JavaPlugin plugin, @NotNull PaperCommandManager commandManager, @NotNull DependencyManager dependencyManager) {
         this(plugin, commandManager, dependencyManager, true);
@@ -54,8 +130,12 @@ public class ModuleManager {
 
         Messages.registerGroup(new ModuleMessages());
 
-        this.disabledModules = plugin.getConfig().getStringList("Disabled-Modules");
-        this.debugModules = plugin.getConfig().getStringList("Debug-Modules");
+        this.timings = new ModuleTimings(new File(plugin.getDataFolder(), "module-timings.yml"), plugin.getLogger());
+        this.modulesFolder = new File(plugin.getDataFolder(), "modules");
+
+        this.stateStore = new ModuleStateStore(plugin);
+        this.disabledModules = stateStore.getDisabledModules();
+        this.debugModules = stateStore.getDebugModules();
 
         commandManager.registerDependency(getClass(), this);
         dependencyManager.registerDependency(getClass(), this);
@@ -65,115 +145,395 @@ public class ModuleManager {
             dependencyManager.injectDependencies(modulesCommand, true);
             commandManager.registerCommand(modulesCommand);
         }
-
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            Iterator<ModuleTask> iterator = cleanupQueue.iterator();
-
-            while (iterator.hasNext()) {
-                ModuleTask task = iterator.next();
-                BitsModule module = task.getModuleInstance();
-
-                if (module != null) {
-                    synchronized (module.getScheduler().getTasks()) {
-                        module.getScheduler().getTasks().remove(task);
-                    }
-                }
-
-                iterator.remove();
-            }
-        }, 0L, 20L * 30L);
     }
 
     /**
      * Register a Module.
+     * <p></p>
+     * When several classes are passed, the modules can be constructed (and have their
+     * configuration loaded) in parallel, see {@link #setParallelConstruction(boolean)}.
+     * They are then registered and enabled on the calling thread in dependency order,
+     * so a module's dependencies from the same call are always registered before it.
+     * <p></p>
+     * Modules are always constructed here, since their {@link ModuleData} is only known once
+     * they are. To load a module lazily, register it through
+     * {@link #registerModule(Class, ModuleData)} with metadata marked as lazy.
      *
      * @param classes The classes to register.
      */
     @SafeVarargs
     public final void registerModule(Class<? extends BitsModule>... classes) {
+        Set<Class<? extends BitsModule>> moduleClasses = new LinkedHashSet<>();
+
         for (Class<? extends BitsModule> moduleClass : classes) {
-            if (modulesByClass.get(moduleClass) != null) {
+            if (isRegistered(moduleClass)) {
                 plugin.getLogger().log(Level.WARNING,
                         ColorUtil.colorForConsole("&8[&9Module Manager&8] &cModule '&4" + moduleClass.getName() + "&c' is already registered."));
                 continue;
             }
 
-            try {
-                BitsModule module = moduleClass.getDeclaredConstructor(JavaPlugin.class, ModuleManager.class).newInstance(plugin, this);
-                boolean missingModule = false;
+            if (dependencyResolver.isPending(moduleClass)) {
+                plugin.getLogger().log(Level.WARNING,
+                        ColorUtil.colorForConsole("&8[&9Module Manager&8] &cModule '&4" + moduleClass.getName() + "&c' is already waiting for its dependencies."));
+                continue;
+            }
+
+            moduleClasses.add(moduleClass);
+        }
+
+        for (BitsModule module : sortByDependencies(constructModules(moduleClasses))) {
+            if (module.getModuleData().lazy()) {
+                plugin.getLogger().log(Level.WARNING,
+                        ColorUtil.colorForConsole("&8[&9" + module.getModuleData().name() + "&8] &eMarked as lazy but registered eagerly, register it with registerModule(Class, ModuleData) to load it on first use."));
+            }
+
+            registerConstructedModule(module);
+        }
+
+        if (!moduleClasses.isEmpty()) {
+            timings.requestSave();
+        }
+    }
+
+    /**
+     * Register a Module using the given metadata.
+     * <p></p>
+     * If the metadata marks the module as lazy, only a stub is registered: the module isn't
+     * constructed until one of its declared commands is run, one of its declared events is
+     * called or it is looked up through this manager. Otherwise the module is registered
+     * like {@link #registerModule(Class[])} would.
+     *
+     * @param moduleClass The class to register.
+     * @param moduleData  The module's metadata, which must match the module's own.
+     */
+    public void registerModule(@NonNull Class<? extends BitsModule> moduleClass, @NonNull ModuleData moduleData) {
+        if (!moduleData.lazy()) {
+            registerModule(moduleClass);
+            return;
+        }
+
+        if (isRegistered(moduleClass) || dependencyResolver.isPending(moduleClass)) {
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cModule '&4" + moduleClass.getName() + "&c' is already registered."));
+            return;
+        }
+
+        LazyModuleStub stub = new LazyModuleStub(plugin, moduleClass, moduleData, trigger -> activateLazyModule(moduleClass, trigger));
+
+        registry.addLazy(stub);
+        stub.install();
+
+        plugin.getLogger().log(Level.INFO,
+                ColorUtil.colorForConsole("&8[&9" + moduleData.name() + "&8] &2Registered lazily, waiting for first use."));
+    }
+
+    /**
+     * @return How many lazy modules have been activated.
+     */
+    public int getLazyActivationCount() {
+        return lazyActivationCount.get();
+    }
+
+    /**
+     * @return The total time lazy module activations took, in nanoseconds.
+     */
+    public long getLazyActivationNanos() {
+        return lazyActivationNanos.get();
+    }
+
+    /**
+     * Replaces a lazy module's stub with the real module, constructing, registering and enabling it.
+     * <p></p>
+     * Activation only happens on the main thread. Called from any other thread, the activation is
+     * scheduled on the main thread instead and {@code null} is returned. If the module can't be
+     * constructed, its stub is put back so a later trigger can try again.
+     *
+     * @param moduleClass the lazy module's class
+     * @param trigger     what caused the activation, for the log
+     * @return the module, or {@code null} if it couldn't be constructed, is waiting for dependencies
+     *         or the call was made off the main thread
+     */
+    private @Nullable BitsModule activateLazyModule(@NonNull Class<? extends BitsModule> moduleClass, @NonNull String trigger) {
+        LazyModuleStub stub = registry.getLazy(moduleClass);
+
+        if (stub == null) {
+            return registry.get(moduleClass);
+        }
+
+        if (!Bukkit.isPrimaryThread()) {
+            if (stub.markActivationQueued()) {
+                ModuleSchedulerPlatform.detect().runGlobal(plugin, () -> activateLazyModule(moduleClass, trigger + " (deferred to main thread)"), 0L, -1L);
+            }
 
-                StringBuilder missingModules = new StringBuilder();
+            return null;
+        }
 
-                for (Class<?> dependency : dependencyManager.getDependencies(module, true)) {
-                    if (!BitsModule.class.isAssignableFrom(dependency) || dependencyManager.isDependencyRegistered(dependency)) {
-                        continue;
-                    }
+        registry.removeLazy(stub);
+        stub.uninstall();
 
-                    pendingModules.computeIfAbsent(dependency, k -> new ArrayList<>())
-                            .add(moduleClass);
-                    missingModule = true;
+        long startTime = System.nanoTime();
+        BitsModule module = constructModule(moduleClass);
 
-                    missingModules.append(", ").append(dependency.getSimpleName());
+        if (module == null) {
+            stub.resetActivationQueued();
+            stub.install();
+            registry.addLazy(stub);
+            return null;
+        }
+
+        registerConstructedModule(module);
+
+        long elapsed = System.nanoTime() - startTime;
+        int activations = lazyActivationCount.incrementAndGet();
+        lazyActivationNanos.addAndGet(elapsed);
+        timings.requestSave();
+
+        plugin.getLogger().log(Level.INFO,
+                ColorUtil.colorForConsole("&8[&9" + stub.getModuleData().name() + "&8] &2Lazily activated by " + trigger + " in &a" + elapsed / 1000000d
+                        + "&2ms &8(&7" + activations + " lazy activation(s), " + registry.lazyCount() + " still dormant&8)"));
+        return registry.get(moduleClass);
+    }
+
+    /**
+     * Creates an instance of each module class, in parallel on virtual threads when enabled and
+     * there is more than one class. Classes that fail to construct are logged and skipped.
+     *
+     * @return the constructed modules, in the order of the given classes
+     */
+    private List<BitsModule> constructModules(@NonNull Collection<Class<? extends BitsModule>> moduleClasses) {
+        List<BitsModule> modules = new ArrayList<>();
+
+        if (!parallelConstruction || moduleClasses.size() < 2) {
+            for (Class<? extends BitsModule> moduleClass : moduleClasses) {
+                BitsModule module = constructModule(moduleClass);
+
+                if (module != null) {
+                    modules.add(module);
                 }
+            }
+
+            return modules;
+        }
+
+        List<CompletableFuture<BitsModule>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Class<? extends BitsModule> moduleClass : moduleClasses) {
+                futures.add(CompletableFuture.supplyAsync(() -> constructModule(moduleClass), executor));
+            }
+        }
+
+        int index = 0;
+
+        for (Class<? extends BitsModule> moduleClass : moduleClasses) {
+            BitsModule module;
+
+            try {
+                module = futures.get(index++).join();
+            } catch (CompletionException e) {
+                logConstructionFailure(moduleClass, e.getCause() == null ? e : e.getCause());
+                continue;
+            }
+
+            if (module != null) {
+                modules.add(module);
+            }
+        }
+
+        return modules;
+    }
+
+    private @Nullable BitsModule constructModule(@NonNull Class<? extends BitsModule> moduleClass) {
+        try {
+            long startTime = System.nanoTime();
+            BitsModule module = moduleClass.getDeclaredConstructor(JavaPlugin.class, ModuleManager.class).newInstance(plugin, this);
+            long elapsed = System.nanoTime() - startTime;
+
+            timings.record(module.getModuleData().id(), ModulePhase.CONSTRUCT, elapsed - module.getConfigLoadNanos());
+            timings.record(module.getModuleData().id(), ModulePhase.CONFIG_LOAD, module.getConfigLoadNanos());
+            return module;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logConstructionFailure(moduleClass, e);
+            return null;
+        }
+    }
+
+    private void logConstructionFailure(@NonNull Class<? extends BitsModule> moduleClass, @NonNull Throwable throwable) {
+        plugin.getLogger().log(Level.SEVERE,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't create new instance of module class '&4" + moduleClass.getName() + "&c'"));
+        throwable.printStackTrace();
+    }
+
+    /**
+     * Orders modules so that each one comes after the modules it depends on. Ties keep the
+     * given order, so registration stays deterministic. Modules caught in a dependency
+     * cycle are appended last in their given order.
+     */
+    private List<BitsModule> sortByDependencies(@NonNull List<BitsModule> modules) {
+        if (modules.size() < 2) {
+            return modules;
+        }
+
+        Map<Class<?>, Integer> indexByClass = new HashMap<>();
+
+        for (int i = 0; i < modules.size(); i++) {
+            indexByClass.put(modules.get(i).getClass(), i);
+        }
+
+        int[] remainingDependencies = new int[modules.size()];
+        List<List<Integer>> dependents = new ArrayList<>();
+
+        for (int i = 0; i < modules.size(); i++) {
+            dependents.add(new ArrayList<>());
+        }
 
-                if(missingModule) {
-                    plugin.getLogger().log(Level.WARNING,
-                            ColorUtil.colorForConsole("&8[&9Module Manager&8] &eWaiting to register module: '&6" + moduleClass.getName() + "&E', it requires the following dependencies:"));
-                    plugin.getLogger().log(Level.WARNING,
-                            ColorUtil.colorForConsole("&8[&9Module Manager&8] &e" + missingModules.toString().replaceFirst("&8, &e", "")));
+        for (int i = 0; i < modules.size(); i++) {
+            for (Class<?> dependency : dependencyManager.getDependencies(modules.get(i), true)) {
+                Integer dependencyIndex = indexByClass.get(dependency);
+
+                if (dependencyIndex == null || dependencyIndex == i) {
                     continue;
                 }
 
-                registerModuleData(module);
-            } catch (InstantiationException | IllegalAccessException | NoSuchMethodException |
-                     InvocationTargetException e) {
-                plugin.getLogger().log(Level.SEVERE,
-                        ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't create new instance of module class '&4" + moduleClass.getName() + "&c'"));
-                e.printStackTrace();
+                remainingDependencies[i]++;
+                dependents.get(dependencyIndex).add(i);
+            }
+        }
+
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+
+        for (int i = 0; i < modules.size(); i++) {
+            if (remainingDependencies[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        List<BitsModule> sorted = new ArrayList<>(modules.size());
+        boolean[] added = new boolean[modules.size()];
+
+        while (!ready.isEmpty()) {
+            int index = ready.poll();
+
+            sorted.add(modules.get(index));
+            added[index] = true;
+
+            for (int dependent : dependents.get(index)) {
+                if (--remainingDependencies[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        for (int i = 0; i < modules.size(); i++) {
+            if (!added[i]) {
+                sorted.add(modules.get(i));
             }
         }
+
+        return sorted;
+    }
+
+    private void registerConstructedModule(@NonNull BitsModule module) {
+        Class<? extends BitsModule> moduleClass = module.getClass();
+        List<Class<?>> missingModules = new ArrayList<>();
+
+        for (Class<?> dependency : dependencyManager.getDependencies(module, true)) {
+            if (!BitsModule.class.isAssignableFrom(dependency) || dependencyManager.isDependencyRegistered(dependency)) {
+                continue;
+            }
+
+            if (registry.getLazy(dependency) != null) {
+                activateLazyModule(dependency.asSubclass(BitsModule.class), "dependency of " + moduleClass.getSimpleName());
+
+                if (dependencyManager.isDependencyRegistered(dependency)) {
+                    continue;
+                }
+            }
+
+            missingModules.add(dependency);
+        }
+
+        if (missingModules.isEmpty()) {
+            registerResolved(module);
+            return;
+        }
+
+        List<Class<?>> cycle = dependencyResolver.park(module, missingModules);
+
+        plugin.getLogger().log(Level.WARNING,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &eWaiting to register module: '&6" + moduleClass.getName() + "&E', it requires the following dependencies:"));
+        plugin.getLogger().log(Level.WARNING,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &e" + joinSimpleNames(missingModules, ", ")));
+
+        if (!cycle.isEmpty()) {
+            plugin.getLogger().log(Level.SEVERE,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cDependency cycle detected, these modules can never be registered: &4" + joinSimpleNames(cycle, " -> ")));
+        }
+    }
+
+    /**
+     * Registers a module whose dependencies are all in place, followed by every waiting module
+     * it completes, and so on down the chain of dependents.
+     */
+    private void registerResolved(@NonNull BitsModule module) {
+        Deque<BitsModule> ready = new ArrayDeque<>();
+        ready.add(module);
+
+        while (!ready.isEmpty()) {
+            BitsModule next = ready.poll();
+
+            registerModuleData(next);
+            ready.addAll(dependencyResolver.resolve(next.getClass()));
+        }
+    }
+
+    private String joinSimpleNames(@NonNull Collection<Class<?>> classes, @NonNull String separator) {
+        StringJoiner joiner = new StringJoiner(separator);
+        classes.forEach(clazz -> joiner.add(clazz.getSimpleName()));
+        return joiner.toString();
     }
 
     private void registerModuleData(@NonNull BitsModule module) {
         Class<? extends BitsModule> moduleClass = module.getClass();
+        String moduleId = module.getModuleData().id();
         long startTime = System.nanoTime();
 
-        commandManager.registerDependency(moduleClass, module);
-        dependencyManager.registerDependency(moduleClass, module);
-        dependencyManager.injectDependencies(module, true);
+        timePhase(moduleId, ModulePhase.DEPENDENCY_INJECTION, () -> {
+            commandManager.registerDependency(moduleClass, module);
+            dependencyManager.registerDependency(moduleClass, module);
+            dependencyManager.injectDependencies(module, true);
+        });
 
         if(debugModules.contains(module.getModuleData().id())) {
             module.setDebug(true);
         }
 
-        modulesByClass.put(moduleClass, module);
-        modulesById.put(module.getModuleData().id().toLowerCase(Locale.ROOT), module);
+        registry.add(module);
 
-        module.onRegister();
-        module.getCommands().forEach(command -> dependencyManager.injectDependencies(command, true));
+        timePhase(moduleId, ModulePhase.REGISTER, () -> {
+            module.onRegister();
+            module.getCommands().forEach(command -> dependencyManager.injectDependencies(command, true));
+        });
 
         if (!disabledModules.contains(module.getModuleData().id())) {
             module.setEnabled(true);
 
-            module.onEnable();
-            module.getCommands().forEach(commandManager::registerCommand);
-            module.getListeners().forEach(listener -> Bukkit.getPluginManager().registerEvents(listener, plugin));
-            Bukkit.getPluginManager().registerEvents(module, plugin);
+            timePhase(moduleId, ModulePhase.ENABLE, module::onEnable);
+            timePhase(moduleId, ModulePhase.COMMANDS, () -> module.getCommands().forEach(commandManager::registerCommand));
+            timePhase(moduleId, ModulePhase.LISTENERS, () -> {
+                module.getListeners().forEach(listener -> registerListener(module, listener));
+                registerListener(module, module);
+            });
 
             ModuleEnableEvent enableEvent = new ModuleEnableEvent(module);
             Bukkit.getPluginManager().callEvent(enableEvent);
         }
 
-        pendingTasksByModule
-                .getOrDefault(moduleClass, Collections.emptyList())
-                .forEach(task -> {
-                    @SuppressWarnings("unchecked")
-                    ModulePendingTask<BitsModule> castedTask = (ModulePendingTask<BitsModule>) task;
+        Set<CompletableFuture<?>> waiters = moduleWaiters.remove(moduleClass);
 
-                    castedTask.accept(module);
-                });
-
-        pendingTasksByModule.remove(moduleClass);
+        if (waiters != null) {
+            waiters.forEach(waiter -> completeWaiter(waiter, module));
+        }
 
         long endTime = System.nanoTime();
         plugin.getLogger().log(Level.INFO,
@@ -187,7 +547,7 @@ public class ModuleManager {
      * @return {@code true} if the Module is registered.
      */
     public boolean isRegistered(Class<? extends BitsModule> clazz) {
-        return modulesByClass.containsKey(clazz);
+        return registry.contains(clazz);
     }
 
     /**
@@ -197,7 +557,84 @@ public class ModuleManager {
      * @return An instance of the Module.
      */
     public <T extends BitsModule> Optional<T> getModuleInstance(Class<T> clazz) {
-        return Optional.ofNullable((T) modulesByClass.get(clazz));
+        return Optional.ofNullable(getModule(clazz));
+    }
+
+    /**
+     * Get a Module instance by its class, without allocating. Safe to call from any thread.
+     * A lazy Module looked up off the main thread isn't returned, its activation is scheduled
+     * on the main thread instead.
+     *
+     * @param clazz The Module's class.
+     * @return An instance of the Module, or {@code null} if it isn't registered.
+     */
+    public <T extends BitsModule> @Nullable T getModule(@NonNull Class<T> clazz) {
+        T module = registry.get(clazz);
+
+        if (module != null || registry.getLazy(clazz) == null) {
+            return module;
+        }
+
+        activateLazyModule(clazz, "lookup");
+        return registry.get(clazz);
+    }
+
+    /**
+     * Returns a future that completes with the Module once it is registered, immediately if
+     * it already is. The future completes on the thread that registers the Module, normally
+     * the main thread. A lazy Module isn't activated by this call.
+     * <p></p>
+     * Each call returns its own future, so callers can cancel or time it out independently.
+     * A future that is cancelled or times out stops being tracked right away.
+     *
+     * @param moduleClass The Module's class.
+     * @return A future for the Module.
+     */
+    public <T extends BitsModule> CompletableFuture<T> awaitModule(@NonNull Class<T> moduleClass) {
+        T module = registry.get(moduleClass);
+
+        if (module != null) {
+            return CompletableFuture.completedFuture(module);
+        }
+
+        CompletableFuture<T> waiter = new CompletableFuture<>();
+
+        moduleWaiters.compute(moduleClass, (key, waiters) -> {
+            Set<CompletableFuture<?>> pending = waiters == null ? ConcurrentHashMap.newKeySet() : waiters;
+            pending.add(waiter);
+            return pending;
+        });
+
+        waiter.whenComplete((result, throwable) -> moduleWaiters.computeIfPresent(moduleClass, (key, waiters) -> {
+            waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        }));
+
+        module = registry.get(moduleClass);
+
+        if (module != null) {
+            waiter.complete(module);
+        }
+
+        return waiter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void completeWaiter(@NonNull CompletableFuture<?> waiter, @NonNull BitsModule module) {
+        ((CompletableFuture<BitsModule>) waiter).complete(module);
+    }
+
+    /**
+     * Like {@link #awaitModule(Class)}, but the future fails with a
+     * {@link java.util.concurrent.TimeoutException} if the Module isn't registered in time.
+     *
+     * @param moduleClass The Module's class.
+     * @param timeout     How long to wait.
+     * @param unit        The unit of the timeout.
+     * @return A future for the Module.
+     */
+    public <T extends BitsModule> CompletableFuture<T> awaitModule(@NonNull Class<T> moduleClass, long timeout, @NonNull TimeUnit unit) {
+        return awaitModule(moduleClass).orTimeout(timeout, unit);
     }
 
     /**
@@ -206,42 +643,63 @@ public class ModuleManager {
      * @param moduleID The Module's ID.
      */
     public void enableModule(String moduleID) {
+        enableModuleById(moduleID);
+    }
+
+    /**
+     * Enable several Modules at once. Their state is written in a single background save, see {@link ModuleStateStore}.
+     *
+     * @param moduleIDs The Modules' IDs.
+     */
+    public void enableModules(@NonNull Collection<String> moduleIDs) {
+        for (String moduleID : moduleIDs) {
+            enableModuleById(moduleID);
+        }
+    }
+
+    /**
+     * @return {@code true} if the module was enabled by this call.
+     */
+    private boolean enableModuleById(String moduleID) {
         Optional<BitsModule> optionalModule = getModuleByID(moduleID);
 
         if (optionalModule.isEmpty()) {
             plugin.getLogger().log(Level.WARNING, ColorUtil.colorForConsole("&8[&9Module Manager&8] &cInvalid Module ID '&4" + moduleID + "&c'."));
-            return;
+            return false;
         }
 
         BitsModule module = optionalModule.get();
 
         if (module.isEnabled()) {
-            return;
+            return false;
         }
 
-        disabledModules.remove(module.getModuleData().id());
-
-        plugin.getConfig().set("Disabled-Modules", disabledModules);
-        plugin.saveConfig();
+        String moduleId = module.getModuleData().id();
+        stateStore.setDisabled(moduleId, false);
 
         module.setEnabled(true);
-        module.reloadConfig();
-        module.loadConfigPaths();
-        module.onEnable();
-        module.getCommands().forEach(commandManager::registerCommand);
-        module.getListeners().forEach(listener -> Bukkit.getPluginManager().registerEvents(listener, plugin));
-        Bukkit.getPluginManager().registerEvents(module, plugin);
+        timeRuntimePhase(moduleId, ModulePhase.CONFIG_LOAD, () -> {
+            module.reloadConfig();
+            module.loadConfigPaths();
+        });
+        timeRuntimePhase(moduleId, ModulePhase.ENABLE, module::onEnable);
+        timeRuntimePhase(moduleId, ModulePhase.COMMANDS, () -> module.getCommands().forEach(commandManager::registerCommand));
+        timeRuntimePhase(moduleId, ModulePhase.LISTENERS, () -> {
+            module.getListeners().forEach(listener -> registerListener(module, listener));
+            registerListener(module, module);
+        });
 
         ModuleEnableEvent enableEvent = new ModuleEnableEvent(module);
         Bukkit.getPluginManager().callEvent(enableEvent);
+        return true;
     }
 
     /**
-     * Disable a Module.
+     * Reload a Module's configuration and call its {@link BitsModule#onReload()}.
      *
      * @param moduleID The Module's ID.
      */
-    public void disableModule(String moduleID) {
+    public void reloadModule(String moduleID) {
         Optional<BitsModule> optionalModule = getModuleByID(moduleID);
 
         if (optionalModule.isEmpty()) {
@@ -255,28 +713,684 @@ public class ModuleManager {
             return;
         }
 
-        disabledModules.add(module.getModuleData().id());
+        timeRuntimePhase(module.getModuleData().id(), ModulePhase.RELOAD, () -> {
+            module.reloadConfig();
+            module.loadConfigPaths();
+            module.onReload();
+        });
+
+        Bukkit.getPluginManager().callEvent(new ModuleReloadEvent(module));
+    }
+
+    /**
+     * Disable a Module.
+     *
+     * @param moduleID The Module's ID.
+     */
+    public void disableModule(String moduleID) {
+        disableModuleById(moduleID);
+    }
+
+    /**
+     * Disable several Modules at once. Their state is written in a single background save, see {@link ModuleStateStore}.
+     *
+     * @param moduleIDs The Modules' IDs.
+     */
+    public void disableModules(@NonNull Collection<String> moduleIDs) {
+        List<BitsModule> modules = new ArrayList<>();
+
+        for (String moduleID : moduleIDs) {
+            BitsModule module = getEnabledModule(moduleID);
+
+            if (module != null && !modules.contains(module)) {
+                stateStore.setDisabled(module.getModuleData().id(), true);
+                modules.add(module);
+            }
+        }
+
+        shutdownModules(modules);
+    }
+
+    /**
+     * @return {@code true} if the module was disabled by this call.
+     */
+    private boolean disableModuleById(String moduleID) {
+        BitsModule module = getEnabledModule(moduleID);
+
+        if (module == null) {
+            return false;
+        }
+
+        stateStore.setDisabled(module.getModuleData().id(), true);
+        shutdownModules(List.of(module));
+        return true;
+    }
+
+    /**
+     * @return the enabled module with the given id, or {@code null} if it doesn't exist (which is logged) or is disabled
+     */
+    private @Nullable BitsModule getEnabledModule(String moduleID) {
+        Optional<BitsModule> optionalModule = getModuleByID(moduleID);
+
+        if (optionalModule.isEmpty()) {
+            plugin.getLogger().log(Level.WARNING, ColorUtil.colorForConsole("&8[&9Module Manager&8] &cInvalid Module ID '&4" + moduleID + "&c'."));
+            return null;
+        }
+
+        return optionalModule.get().isEnabled() ? optionalModule.get() : null;
+    }
+
+    /**
+     * Disables the given modules without recording them as disabled. All of them stop accepting
+     * tasks and have their idle tasks cancelled first, then their in-flight runs are given one
+     * shared drain deadline, so disabling many modules waits at most the longest drain timeout
+     * instead of one timeout per module.
+     */
+    private void shutdownModules(@NonNull List<BitsModule> modules) {
+        long timeoutMillis = 0;
+
+        for (BitsModule module : modules) {
+            module.setEnabled(false);
+            module.cancelAwaiting();
+            module.getScheduler().beginDrain();
+            timeoutMillis = Math.max(timeoutMillis, module.getScheduler().getDrainTimeoutMillis());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        for (BitsModule module : modules) {
+            module.getScheduler().awaitDrain(deadline);
+        }
 
-        plugin.getConfig().set("Disabled-Modules", disabledModules);
-        plugin.saveConfig();
+        modules.forEach(this::shutdownModule);
+    }
 
-        module.setEnabled(false);
-        module.onDisable();
-        new ArrayList<>(module.getScheduler().getTasks()).forEach(ModuleTask::cancel);
-        module.getListeners().forEach(HandlerList::unregisterAll);
-        module.getCommands().forEach(commandManager::unregisterCommand);
-        HandlerList.unregisterAll(module);
+    /**
+     * Calls a drained module's {@link BitsModule#onDisable()}, shuts its scheduler down and
+     * removes its listeners and commands.
+     */
+    private void shutdownModule(@NonNull BitsModule module) {
+        timeRuntimePhase(module.getModuleData().id(), ModulePhase.DISABLE, () -> {
+            module.onDisable();
+            module.getScheduler().shutdown();
+            module.getListeners().forEach(HandlerList::unregisterAll);
+            module.getCommands().forEach(commandManager::unregisterCommand);
+            HandlerList.unregisterAll(module);
+        });
 
         ModuleDisableEvent disableEvent = new ModuleDisableEvent(module);
         Bukkit.getPluginManager().callEvent(disableEvent);
     }
 
+    /**
+     * Disables every enabled Module for a server stop or plugin disable. Call this from the
+     * host plugin's {@code onDisable}, on the main thread. Lazy Modules that were never
+     * activated have their stub commands and listeners removed first.
+     * <p></p>
+     * Modules are disabled in reverse dependency order: a Module is only disabled once every
+     * Module depending on it is. On the calling thread, every Module first stops accepting
+     * tasks, has its listeners and commands removed and its batchers flushed, and its tasks
+     * drained against one shared deadline. {@link BitsModule#onDisable()} is then called in
+     * order on the calling thread, or, if {@link #setParallelShutdown(boolean)} is enabled, on
+     * virtual threads as soon as a Module's dependents are done. Schedulers are shut down and
+     * disable events fired back on the calling thread.
+     * <p></p>
+     * Modules still disabling after {@link #setShutdownTimeoutMillis(long)} are interrupted,
+     * reported and abandoned: their timings aren't recorded and their jars aren't closed. Each
+     * other Module's {@code onDisable} time is recorded as a runtime timing.
+     * <p></p>
+     * Unlike {@link #disableModule(String)}, the Modules aren't recorded as disabled, so they
+     * start enabled again next time. Pending timings and state changes are written last.
+     */
+    public void shutdownAll() {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        List<BitsModule> modules = new ArrayList<>();
+
+        for (LazyModuleStub stub : registry.lazyByClass().values()) {
+            registry.removeLazy(stub);
+            stub.uninstall();
+        }
+
+        for (BitsModule module : sortByDependencies(new ArrayList<>(registry.byClass().values()))) {
+            if (module.isEnabled()) {
+                modules.add(module);
+            }
+        }
+
+        Collections.reverse(modules);
+
+        long drainTimeoutMillis = 0;
+
+        for (BitsModule module : modules) {
+            module.setEnabled(false);
+            module.cancelAwaiting();
+            module.getListeners().forEach(HandlerList::unregisterAll);
+            module.getCommands().forEach(commandManager::unregisterCommand);
+            HandlerList.unregisterAll(module);
+            module.getScheduler().flushBatchers();
+            module.getScheduler().beginDrain();
+            drainTimeoutMillis = Math.max(drainTimeoutMillis, module.getScheduler().getDrainTimeoutMillis());
+        }
+
+        long drainDeadline = Math.min(deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis));
+
+        for (BitsModule module : modules) {
+            module.getScheduler().awaitDrain(drainDeadline);
+        }
+
+        Map<BitsModule, Long> disableNanos = parallelShutdown && modules.size() > 1
+                ? disableInParallel(modules, deadline)
+                : disableInOrder(modules, deadline);
+
+        List<BitsModule> unfinished = new ArrayList<>();
+
+        for (BitsModule module : modules) {
+            module.getScheduler().shutdown();
+            Long nanos = disableNanos.get(module);
+
+            if (nanos == null) {
+                unfinished.add(module);
+                continue;
+            }
+
+            timings.recordRuntime(module.getModuleData().id(), ModulePhase.DISABLE, nanos);
+            Bukkit.getPluginManager().callEvent(new ModuleDisableEvent(module));
+        }
+
+        if (!unfinished.isEmpty()) {
+            StringJoiner names = new StringJoiner(", ");
+            unfinished.forEach(module -> names.add(module.getModuleData().id()));
+
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cAbandoned these modules, they didn't disable within &4" + shutdownTimeoutMillis + "&cms: &4" + names));
+        }
+
+        CancellationException shutdown = new CancellationException("Module manager shut down");
+        moduleWaiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.completeExceptionally(shutdown)));
+        moduleWaiters.clear();
+
+        for (ModuleJar jar : moduleJars.values()) {
+            if (unfinished.stream().anyMatch(module -> jar.contains(module.getClass()))) {
+                continue;
+            }
+
+            try {
+                jar.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING,
+                        ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't close jar '&4" + jar.getName() + "&c': " + e.getMessage()));
+            }
+        }
+
+        moduleJars.clear();
+        taskWatchdog.shutdown();
+        timings.close();
+        stateStore.close();
+
+        plugin.getLogger().log(Level.INFO,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &2Disabled &a" + (modules.size() - unfinished.size()) + "&2 module(s) in &a"
+                        + (System.nanoTime() - startTime) / 1000000d + "&2ms"));
+    }
+
+    /**
+     * Calls each module's {@link BitsModule#onDisable()} on the calling thread, skipping the rest once the deadline passes.
+     *
+     * @return how long each disabled module took, modules that weren't disabled are missing
+     */
+    private Map<BitsModule, Long> disableInOrder(@NonNull List<BitsModule> modules, long deadline) {
+        Map<BitsModule, Long> disableNanos = new IdentityHashMap<>();
+
+        for (BitsModule module : modules) {
+            if (System.nanoTime() - deadline > 0) {
+                break;
+            }
+
+            disableNanos.put(module, disableForShutdown(module));
+        }
+
+        return disableNanos;
+    }
+
+    /**
+     * Calls each module's {@link BitsModule#onDisable()} on a virtual thread once every module
+     * depending on it is done. Modules still running at the deadline are interrupted and left out.
+     *
+     * @param modules the modules, dependents first
+     * @return how long each disabled module took, modules that didn't finish in time are missing
+     */
+    private Map<BitsModule, Long> disableInParallel(@NonNull List<BitsModule> modules, long deadline) {
+        Map<BitsModule, CompletableFuture<Long>> futures = new IdentityHashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        for (BitsModule module : modules) {
+            List<CompletableFuture<Long>> dependents = new ArrayList<>();
+
+            for (BitsModule other : modules) {
+                CompletableFuture<Long> dependentFuture = futures.get(other);
+
+                if (dependentFuture != null && dependencyManager.getDependencies(other, true).contains(module.getClass())) {
+                    dependents.add(dependentFuture);
+                }
+            }
+
+            futures.put(module, CompletableFuture.allOf(dependents.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> disableForShutdown(module), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Modules that haven't finished are left out below.
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<BitsModule, Long> disableNanos = new IdentityHashMap<>();
+
+        futures.forEach((module, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                disableNanos.put(module, future.join());
+            }
+        });
+
+        return disableNanos;
+    }
+
+    /**
+     * Calls a drained module's {@link BitsModule#onDisable()}. Never throws, so a failing module
+     * doesn't hold up the modules it depends on. Doesn't record timings, since it may run on a
+     * thread that is abandoned.
+     *
+     * @return how long {@code onDisable} took, in nanoseconds
+     */
+    private long disableForShutdown(@NonNull BitsModule module) {
+        long[] elapsed = new long[1];
+
+        try {
+            timePhase(module.getModuleData().id(), ModulePhase.DISABLE, module::onDisable, nanos -> elapsed[0] = nanos);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cModule '&4" + module.getModuleData().id() + "&c' failed to disable."));
+            e.printStackTrace();
+        }
+
+        return elapsed[0];
+    }
+
+    /**
+     * Loads every jar in the {@code modules/} folder that isn't loaded yet and registers its modules.
+     * The folder is created on the first call, so plugins that never load module jars don't get one.
+     *
+     * @see #loadModuleJar(File)
+     */
+    public void loadModuleJars() {
+        if (!modulesFolder.exists()) {
+            modulesFolder.mkdirs();
+            return;
+        }
+
+        File[] files = modulesFolder.listFiles((dir, name) -> name.toLowerCase(Locale.ROOT).endsWith(".jar"));
+
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files);
+
+        for (File file : files) {
+            if (moduleJars.containsKey(file.getName().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+
+            loadModuleJar(file);
+        }
+    }
+
+    /**
+     * Loads a module jar in its own class loader and registers the modules listed in its
+     * {@code module.yml}, see {@link ModuleJar}.
+     *
+     * @param file The jar file.
+     * @return {@code true} if the jar was loaded.
+     */
+    public boolean loadModuleJar(@NonNull File file) {
+        String key = file.getName().toLowerCase(Locale.ROOT);
+
+        if (moduleJars.containsKey(key)) {
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cJar '&4" + file.getName() + "&c' is already loaded, swap it instead."));
+            return false;
+        }
+
+        ModuleJar jar = openModuleJar(file);
+
+        if (jar == null) {
+            return false;
+        }
+
+        moduleJars.put(key, jar);
+        registerModuleJar(jar);
+        return true;
+    }
+
+    /**
+     * Unloads a module jar: its modules are disabled and unregistered and its class loader is closed.
+     * Refused while a module from outside the jar depends on one of its modules.
+     *
+     * @param jarName The jar's file name.
+     * @return {@code true} if the jar was unloaded.
+     */
+    public boolean unloadModuleJar(@NonNull String jarName) {
+        ModuleJar jar = moduleJars.get(jarName.toLowerCase(Locale.ROOT));
+
+        if (jar == null) {
+            plugin.getLogger().log(Level.WARNING, ColorUtil.colorForConsole("&8[&9Module Manager&8] &cJar '&4" + jarName + "&c' isn't loaded."));
+            return false;
+        }
+
+        if (hasExternalDependents(jar)) {
+            return false;
+        }
+
+        moduleJars.remove(jarName.toLowerCase(Locale.ROOT));
+        closeModuleJar(jar);
+        return true;
+    }
+
+    /**
+     * Replaces a loaded module jar with the version currently on disk, without a restart.
+     * <p></p>
+     * The new version is opened first, so a broken jar leaves the old one running. The old
+     * modules are then disabled and unregistered, the old class loader is closed and the new
+     * modules are registered. Modules keep their enabled or disabled state across the swap.
+     * A jar that isn't loaded yet is simply loaded.
+     * <p></p>
+     * The swap is refused while a module from outside the jar depends on one of its modules,
+     * since that module would keep a reference to the old instance.
+     *
+     * @param jarName The jar's file name, which must name a file directly inside the {@code modules/} folder.
+     * @return {@code true} if the new version was loaded.
+     */
+    public boolean swapModuleJar(@NonNull String jarName) {
+        String key = jarName.toLowerCase(Locale.ROOT);
+        ModuleJar oldJar = moduleJars.get(key);
+        File file = oldJar == null ? resolveModuleJar(jarName) : oldJar.getFile();
+
+        if (file == null) {
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cJar '&4" + jarName + "&c' isn't inside the modules folder."));
+            return false;
+        }
+
+        if (!file.isFile()) {
+            plugin.getLogger().log(Level.WARNING, ColorUtil.colorForConsole("&8[&9Module Manager&8] &cJar '&4" + jarName + "&c' doesn't exist."));
+            return false;
+        }
+
+        if (oldJar == null) {
+            return loadModuleJar(file);
+        }
+
+        if (hasExternalDependents(oldJar)) {
+            return false;
+        }
+
+        long startTime = System.nanoTime();
+        ModuleJar newJar = openModuleJar(file);
+
+        if (newJar == null) {
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cKeeping the loaded version of jar '&4" + oldJar.getName() + "&c'."));
+            return false;
+        }
+
+        closeModuleJar(oldJar);
+        moduleJars.put(key, newJar);
+        registerModuleJar(newJar);
+
+        plugin.getLogger().log(Level.INFO,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &2Swapped jar '&a" + newJar.getName() + "&2' in &a" + (System.nanoTime() - startTime) / 1000000d + "&2ms"));
+        return true;
+    }
+
+    /**
+     * Resolves a jar name against the {@code modules/} folder, refusing names such as
+     * {@code ../plugins/Other.jar} or absolute paths that point anywhere else.
+     *
+     * @return the jar file, or {@code null} if the name doesn't resolve to a file directly in the folder
+     */
+    private @Nullable File resolveModuleJar(@NonNull String jarName) {
+        try {
+            File folder = modulesFolder.getCanonicalFile();
+            File file = new File(folder, jarName).getCanonicalFile();
+
+            return folder.equals(file.getParentFile()) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private @Nullable ModuleJar openModuleJar(@NonNull File file) {
+        try {
+            return ModuleJar.open(file, plugin.getClass().getClassLoader());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't load jar '&4" + file.getName() + "&c': " + e.getMessage()));
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerModuleJar(@NonNull ModuleJar jar) {
+        registerModule(jar.getModuleClasses().toArray(new Class[0]));
+    }
+
+    /**
+     * Logs and returns whether any registered or pending module outside the jar depends on a module from it.
+     */
+    private boolean hasExternalDependents(@NonNull ModuleJar jar) {
+        List<Class<?>> dependents = new ArrayList<>();
+        List<BitsModule> candidates = new ArrayList<>(registry.byClass().values());
+        candidates.addAll(dependencyResolver.getPendingModules());
+
+        for (BitsModule module : candidates) {
+            if (jar.contains(module.getClass())) {
+                continue;
+            }
+
+            for (Class<?> dependency : dependencyManager.getDependencies(module, true)) {
+                if (jar.contains(dependency)) {
+                    dependents.add(module.getClass());
+                    break;
+                }
+            }
+        }
+
+        if (dependents.isEmpty()) {
+            return false;
+        }
+
+        plugin.getLogger().log(Level.WARNING,
+                ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCan't unload jar '&4" + jar.getName() + "&c', these modules depend on it: &4" + joinSimpleNames(dependents, ", ")));
+        return true;
+    }
+
+    /**
+     * Unregisters the jar's modules, dependents first, and closes its class loader.
+     */
+    private void closeModuleJar(@NonNull ModuleJar jar) {
+        List<BitsModule> modules = new ArrayList<>();
+
+        for (Class<? extends BitsModule> moduleClass : jar.getModuleClasses()) {
+            BitsModule module = registry.get(moduleClass);
+
+            if (module != null) {
+                modules.add(module);
+            }
+
+            dependencyResolver.remove(moduleClass);
+        }
+
+        List<BitsModule> ordered = new ArrayList<>(sortByDependencies(modules));
+        Collections.reverse(ordered);
+        shutdownModules(ordered.stream().filter(BitsModule::isEnabled).toList());
+        ordered.forEach(this::unregisterModule);
+
+        try {
+            jar.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't close jar '&4" + jar.getName() + "&c': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Shuts a module down if it is enabled and removes it from this manager, so a new
+     * version of its class can be registered under the same id.
+     */
+    private void unregisterModule(@NonNull BitsModule module) {
+        if (module.isEnabled()) {
+            shutdownModules(List.of(module));
+        }
+
+        module.cancelAwaiting();
+        registry.remove(module);
+        dependencyManager.getDependencies().remove(module.getClass());
+        commandManager.unregisterDependency(module.getClass());
+
+        plugin.getLogger().log(Level.INFO,
+                ColorUtil.colorForConsole("&8[&9" + module.getModuleData().name() + "&8] &2Unregistered."));
+    }
+
+    /**
+     * Registers the event handlers of a module's listener. Each handler is registered on its own
+     * so its executor can be wrapped in a {@link ModuleTimedExecutor}, which reports every call
+     * to Java Flight Recorder.
+     *
+     * @param module   The module owning the listener.
+     * @param listener The listener to register.
+     */
+    public void registerListener(@NonNull BitsModule module, @NonNull Listener listener) {
+        String moduleId = module.getModuleData().id();
+        Set<Method> methods = new HashSet<>(Arrays.asList(listener.getClass().getMethods()));
+        methods.addAll(Arrays.asList(listener.getClass().getDeclaredMethods()));
+
+        for (Method method : methods) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+
+            if (handler == null || method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
+
+            if (method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                plugin.getLogger().log(Level.SEVERE, ColorUtil.colorForConsole("&8[&9Module Manager&8] &cInvalid event handler '&4"
+                        + listener.getClass().getSimpleName() + "#" + method.getName() + "&c' in module '&4" + moduleId + "&c'."));
+                continue;
+            }
+
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            method.setAccessible(true);
+
+            EventExecutor executor = new ModuleTimedExecutor(moduleId, eventClass, EventExecutor.create(method, eventClass));
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, handler.priority(), executor, plugin, handler.ignoreCancelled());
+        }
+    }
+
+    private void timePhase(@NonNull String moduleId, @NonNull ModulePhase phase, @NonNull Runnable action) {
+        timePhase(moduleId, phase, false, action);
+    }
+
+    /**
+     * Like {@link #timePhase(String, ModulePhase, Runnable)}, for phases run after the module was
+     * registered, which must not replace its startup timings.
+     */
+    private void timeRuntimePhase(@NonNull String moduleId, @NonNull ModulePhase phase, @NonNull Runnable action) {
+        timePhase(moduleId, phase, true, action);
+    }
+
+    private void timePhase(@NonNull String moduleId, @NonNull ModulePhase phase, boolean runtime, @NonNull Runnable action) {
+        timePhase(moduleId, phase, action, elapsed -> {
+            if (runtime) {
+                timings.recordRuntime(moduleId, phase, elapsed);
+                timings.requestSave();
+            } else {
+                timings.record(moduleId, phase, elapsed);
+            }
+        });
+    }
+
+    /**
+     * Runs a phase, reports it to Java Flight Recorder and hands its duration to the recorder,
+     * even if the phase throws.
+     */
+    private void timePhase(@NonNull String moduleId, @NonNull ModulePhase phase, @NonNull Runnable action, @NonNull LongConsumer recorder) {
+        ModuleLifecycleEvent event = new ModuleLifecycleEvent();
+        long startTime = System.nanoTime();
+
+        event.begin();
+
+        try {
+            action.run();
+        } finally {
+            event.end();
+            recorder.accept(System.nanoTime() - startTime);
+
+            if (event.shouldCommit()) {
+                event.moduleId = moduleId;
+                event.phase = phase.name();
+                event.commit();
+            }
+        }
+    }
+
     public Optional<BitsModule> getModuleByID(@NonNull String id) {
-        return Optional.ofNullable(modulesById.get(id.toLowerCase(Locale.ROOT)));
+        return Optional.ofNullable(getModule(id));
     }
 
-    public void scheduleCleanup(@NonNull ModuleTask task) {
-        cleanupQueue.add(task);
+    /**
+     * Get a Module by its case-insensitive ID, without allocating. Safe to call from any thread.
+     * A lazy Module looked up off the main thread isn't returned, its activation is scheduled
+     * on the main thread instead.
+     *
+     * @param id The Module's ID.
+     * @return The Module, or {@code null} if none is registered with that ID.
+     */
+    public @Nullable BitsModule getModule(@NonNull String id) {
+        BitsModule module = registry.get(id);
+
+        if (module != null) {
+            return module;
+        }
+
+        LazyModuleStub stub = registry.getLazy(id);
+
+        if (stub == null) {
+            return null;
+        }
+
+        activateLazyModule(stub.getModuleClass(), "lookup");
+        return registry.get(id);
+    }
+
+    /**
+     * @return A read-only snapshot of the registered Modules by class.
+     */
+    public Map<Class<? extends BitsModule>, BitsModule> getModulesByClass() {
+        return registry.byClass();
+    }
+
+    /**
+     * @return A copy of the registered Modules by lowercase ID. Changes to it don't affect the registry.
+     */
+    public HashMap<String, BitsModule> getModulesById() {
+        HashMap<String, BitsModule> modulesById = new HashMap<>();
+        registry.byId().forEach((id, module) -> modulesById.put(id.toLowerCase(Locale.ROOT), module));
+        return modulesById;
     }
 
 }
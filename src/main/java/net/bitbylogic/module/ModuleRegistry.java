@@ -0,0 +1,128 @@
+package net.bitbylogic.module;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Holds the registered modules and lazy module stubs of a {@link ModuleManager}.
+ * <p></p>
+ * The contents are published as an immutable {@link Snapshot}. Writers copy the current
+ * snapshot, apply their change and publish the copy, so readers on any thread only do a
+ * volatile read and never lock. Class lookups go through identity maps and id lookups
+ * through {@link String#CASE_INSENSITIVE_ORDER} tree maps, so neither allocates.
+ */
+class ModuleRegistry {
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @SuppressWarnings("unchecked")
+    <T extends BitsModule> @Nullable T get(@NonNull Class<T> moduleClass) {
+        return (T) snapshot.byClass.get(moduleClass);
+    }
+
+    @Nullable BitsModule get(@NonNull String id) {
+        return snapshot.byId.get(id);
+    }
+
+    @Nullable LazyModuleStub getLazy(@NonNull Class<?> moduleClass) {
+        return snapshot.lazyByClass.get(moduleClass);
+    }
+
+    @Nullable LazyModuleStub getLazy(@NonNull String id) {
+        return snapshot.lazyById.get(id);
+    }
+
+    boolean contains(@NonNull Class<?> moduleClass) {
+        Snapshot current = snapshot;
+        return current.byClass.containsKey(moduleClass) || current.lazyByClass.containsKey(moduleClass);
+    }
+
+    int lazyCount() {
+        return snapshot.lazyByClass.size();
+    }
+
+    /**
+     * @return A read-only map of the registered modules by class, as of this call.
+     */
+    Map<Class<? extends BitsModule>, BitsModule> byClass() {
+        return snapshot.byClass;
+    }
+
+    /**
+     * @return A read-only map of the registered modules by case-insensitive id, as of this call.
+     */
+    Map<String, BitsModule> byId() {
+        return snapshot.byId;
+    }
+
+    /**
+     * @return A read-only map of the lazy module stubs by class, as of this call.
+     */
+    Map<Class<? extends BitsModule>, LazyModuleStub> lazyByClass() {
+        return snapshot.lazyByClass;
+    }
+
+    void add(@NonNull BitsModule module) {
+        update(copy -> {
+            copy.byClass.put(module.getClass(), module);
+            copy.byId.put(module.getModuleData().id(), module);
+        });
+    }
+
+    void remove(@NonNull BitsModule module) {
+        update(copy -> {
+            copy.byClass.remove(module.getClass());
+            copy.byId.remove(module.getModuleData().id());
+        });
+    }
+
+    void addLazy(@NonNull LazyModuleStub stub) {
+        update(copy -> {
+            copy.lazyByClass.put(stub.getModuleClass(), stub);
+            copy.lazyById.put(stub.getModuleData().id(), stub);
+        });
+    }
+
+    void removeLazy(@NonNull LazyModuleStub stub) {
+        update(copy -> {
+            copy.lazyByClass.remove(stub.getModuleClass());
+            copy.lazyById.remove(stub.getModuleData().id());
+        });
+    }
+
+    private synchronized void update(Consumer<Snapshot> change) {
+        Snapshot copy = snapshot.mutableCopy();
+        change.accept(copy);
+        snapshot = copy.freeze();
+    }
+
+    private record Snapshot(Map<Class<? extends BitsModule>, BitsModule> byClass, Map<String, BitsModule> byId,
+                            Map<Class<? extends BitsModule>, LazyModuleStub> lazyByClass, Map<String, LazyModuleStub> lazyById) {
+
+        private static final Snapshot EMPTY = new Snapshot(new IdentityHashMap<>(), new TreeMap<>(String.CASE_INSENSITIVE_ORDER),
+                new IdentityHashMap<>(), new TreeMap<>(String.CASE_INSENSITIVE_ORDER)).freeze();
+
+        private Snapshot mutableCopy() {
+            Map<String, BitsModule> idCopy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            idCopy.putAll(byId);
+
+            Map<String, LazyModuleStub> lazyIdCopy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            lazyIdCopy.putAll(lazyById);
+
+            return new Snapshot(new IdentityHashMap<>(byClass), idCopy, new IdentityHashMap<>(lazyByClass), lazyIdCopy);
+        }
+
+        private Snapshot freeze() {
+            return new Snapshot(Collections.unmodifiableMap(byClass), Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(lazyByClass), Collections.unmodifiableMap(lazyById));
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+package net.bitbylogic.module;
+
+import lombok.NonNull;
+import net.bitbylogic.module.scheduler.ModuleSchedulerPlatform;
+import net.bitbylogic.utils.color.ColorUtil;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Persists which modules are disabled and which have debug enabled, in {@value #FILE_NAME}
+ * in the plugin's data folder under {@code Disabled-Modules} and {@code Debug-Modules}.
+ * The store owns that file, so saving it never overwrites the host plugin's {@code config.yml}
+ * with a stale copy. Older versions kept the lists in {@code config.yml}; they are read from
+ * there once, while the state file doesn't exist yet.
+ * <p></p>
+ * Changes are kept in memory and written in batches: the first change schedules a save for
+ * the next tick, and every change made before it runs is written along with it. The save
+ * snapshots the lists, then writes them on a background thread to a temporary file that is
+ * atomically moved over the state file, so a crash mid-write never leaves it truncated.
+ */
+public class ModuleStateStore {
+
+    private static final String DISABLED_PATH = "Disabled-Modules";
+    private static final String DEBUG_PATH = "Debug-Modules";
+    private static final String FILE_NAME = "module-state.yml";
+
+    private final JavaPlugin plugin;
+    private final File stateFile;
+
+    private final List<String> disabledModules;
+    private final List<String> debugModules;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bits-modules-state-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private boolean dirty;
+    private boolean closed;
+    private boolean saveScheduled;
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    public ModuleStateStore(@NonNull JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.stateFile = new File(plugin.getDataFolder(), FILE_NAME);
+
+        ConfigurationSection state = stateFile.exists() ? YamlConfiguration.loadConfiguration(stateFile) : plugin.getConfig();
+
+        this.disabledModules = new ArrayList<>(state.getStringList(DISABLED_PATH));
+        this.debugModules = new ArrayList<>(state.getStringList(DEBUG_PATH));
+    }
+
+    /**
+     * @return A read-only view of the disabled module ids.
+     */
+    public synchronized List<String> getDisabledModules() {
+        return Collections.unmodifiableList(disabledModules);
+    }
+
+    /**
+     * @return A read-only view of the module ids with debug enabled.
+     */
+    public synchronized List<String> getDebugModules() {
+        return Collections.unmodifiableList(debugModules);
+    }
+
+    public synchronized boolean isDisabled(@NonNull String moduleId) {
+        return disabledModules.contains(moduleId);
+    }
+
+    public synchronized boolean isDebug(@NonNull String moduleId) {
+        return debugModules.contains(moduleId);
+    }
+
+    /**
+     * Records whether a module is disabled and schedules a save if that changed anything.
+     */
+    public synchronized void setDisabled(@NonNull String moduleId, boolean disabled) {
+        if (update(disabledModules, moduleId, disabled)) {
+            markDirty();
+        }
+    }
+
+    /**
+     * Records whether a module has debug enabled and schedules a save if that changed anything.
+     */
+    public synchronized void setDebug(@NonNull String moduleId, boolean debug) {
+        if (update(debugModules, moduleId, debug)) {
+            markDirty();
+        }
+    }
+
+    private boolean update(List<String> moduleIds, String moduleId, boolean present) {
+        if (present == moduleIds.contains(moduleId)) {
+            return false;
+        }
+
+        return present ? moduleIds.add(moduleId) : moduleIds.remove(moduleId);
+    }
+
+    private void markDirty() {
+        if (closed) {
+            return;
+        }
+
+        dirty = true;
+
+        if (saveScheduled) {
+            return;
+        }
+
+        saveScheduled = true;
+        ModuleSchedulerPlatform.detect().runGlobal(plugin, this::flush, 1L, -1L);
+    }
+
+    /**
+     * Writes any pending changes now. The lists are serialized on the calling thread and
+     * written in the background.
+     *
+     * @return A future completed once the write is done.
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        saveScheduled = false;
+
+        if (!dirty || closed) {
+            return lastWrite;
+        }
+
+        dirty = false;
+
+        YamlConfiguration state = new YamlConfiguration();
+        state.set(DISABLED_PATH, new ArrayList<>(disabledModules));
+        state.set(DEBUG_PATH, new ArrayList<>(debugModules));
+
+        String contents = state.saveToString();
+        lastWrite = CompletableFuture.runAsync(() -> write(contents), writer);
+        return lastWrite;
+    }
+
+    /**
+     * Writes any pending changes and waits for every write to finish, then stops the writer thread.
+     * Call this when the plugin disables. Changes made afterwards, for example by an abandoned
+     * module that is still shutting down, are kept in memory but never written.
+     */
+    public void close() {
+        CompletableFuture<Void> lastFlush;
+
+        synchronized (this) {
+            lastFlush = flush();
+            closed = true;
+        }
+
+        lastFlush.join();
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String contents) {
+        Path target = stateFile.toPath();
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "module-state", ".yml.tmp");
+
+            try {
+                Files.writeString(temp, contents, StandardCharsets.UTF_8);
+
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    ColorUtil.colorForConsole("&8[&9Module Manager&8] &cCouldn't save module state: " + e.getMessage()));
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -4,19 +4,24 @@ import co.aikar.commands.BaseCommand;
 import co.aikar.commands.annotation.*;
 import net.bitbylogic.module.BitsModule;
 import net.bitbylogic.module.ModuleManager;
-import net.bitbylogic.module.event.ModuleReloadEvent;
 import net.bitbylogic.module.message.ModuleMessages;
+import net.bitbylogic.module.scheduler.ModuleAsyncLimiter;
 import net.bitbylogic.module.scheduler.ModuleTask;
+import net.bitbylogic.module.scheduler.ModuleTaskStats;
+import net.bitbylogic.module.timing.ModulePhase;
+import net.bitbylogic.module.timing.ModuleTimings;
 import net.bitbylogic.utils.message.MessageUtil;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @CommandAlias("module|mdl|modules|mdls")
@@ -61,10 +66,7 @@ public class ModulesCommand extends BaseCommand {
                 Placeholder.unparsed("id", module.getModuleData().id())
         );
 
-        module.reloadConfig();
-        module.loadConfigPaths();
-        module.onReload();
-        Bukkit.getPluginManager().callEvent(new ModuleReloadEvent(module));
+        moduleManager.reloadModule(module.getModuleData().id());
     }
 
     @Subcommand("enable")
@@ -175,8 +177,8 @@ public class ModulesCommand extends BaseCommand {
 
     @Subcommand("tasks")
     @CommandPermission("bitsmodules.command.module.tasks")
-    @CommandCompletion("@moduleIds")
-    public void onTasks(CommandSender sender, String moduleId, @Default("1") int page) {
+    @CommandCompletion("@moduleIds --stats")
+    public void onTasks(CommandSender sender, String moduleId, String[] args) {
         Optional<BitsModule> optionalModule = moduleManager.getModuleByID(moduleId);
         if (optionalModule.isEmpty()) {
             ModuleMessages.INVALID_MODULE.send(sender,
@@ -185,8 +187,30 @@ public class ModulesCommand extends BaseCommand {
         }
 
         BitsModule module = optionalModule.get();
+        boolean stats = false;
+        int page = 1;
+
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("--stats")) {
+                stats = true;
+                continue;
+            }
+
+            try {
+                page = Integer.parseInt(arg);
+            } catch (NumberFormatException e) {
+                ModuleMessages.INVALID_PAGE.send(sender,
+                        Placeholder.unparsed("page", arg));
+                return;
+            }
+        }
+
+        if (stats) {
+            displayTaskStats(sender, module, page);
+            return;
+        }
 
-        if (module.getScheduler().getTasks().isEmpty()) {
+        if (module.getScheduler().getRegistry().isEmpty()) {
             ModuleMessages.NO_TASKS.send(sender,
                     Placeholder.unparsed("id", module.getModuleData().name()));
             return;
@@ -194,7 +218,7 @@ public class ModulesCommand extends BaseCommand {
 
         List<TextComponent> taskComponents = new ArrayList<>();
 
-        for (ModuleTask task : module.getScheduler().getTasks()) {
+        for (ModuleTask task : module.getScheduler().getRegistry().snapshot()) {
             if (!task.isActive()) {
                 continue;
             }
@@ -205,6 +229,172 @@ public class ModulesCommand extends BaseCommand {
         sendPagedComponents(sender, module.getModuleData().name() + "'s Tasks", taskComponents, page);
     }
 
+    private void displayTaskStats(CommandSender sender, BitsModule module, int page) {
+        ModuleAsyncLimiter limiter = module.getScheduler().getAsyncLimiter();
+
+        if (limiter.isEnabled()) {
+            ModuleMessages.ASYNC_LIMITER_STATS.send(sender,
+                    Placeholder.unparsed("in_flight", String.valueOf(limiter.getInFlight())),
+                    Placeholder.unparsed("max", String.valueOf(limiter.getMaxInFlight())),
+                    Placeholder.unparsed("pending", String.valueOf(limiter.getPendingCount())),
+                    Placeholder.unparsed("rejected", String.valueOf(limiter.getRejected())),
+                    Placeholder.unparsed("coalesced", String.valueOf(limiter.getCoalesced())),
+                    Placeholder.unparsed("skipped", String.valueOf(limiter.getSkipped())),
+                    Placeholder.unparsed("caller_runs", String.valueOf(limiter.getCallerRuns())));
+        }
+
+        List<ModuleTaskStats> stats = new ArrayList<>(module.getScheduler().getStats().values());
+
+        if (stats.isEmpty()) {
+            ModuleMessages.NO_TASKS.send(sender,
+                    Placeholder.unparsed("id", module.getModuleData().name()));
+            return;
+        }
+
+        stats.sort(Comparator.comparingLong(ModuleTaskStats::getTotalNanos).reversed());
+
+        List<TextComponent> statComponents = new ArrayList<>();
+        long[] bounds = ModuleTaskStats.getBucketBoundsMicros();
+
+        for (ModuleTaskStats taskStats : stats) {
+            StringBuilder histogram = new StringBuilder("<gray>Latency histogram:");
+            long[] counts = taskStats.getHistogram();
+
+            for (int i = 0; i < counts.length; i++) {
+                String bucket = i < bounds.length ? "< " + formatMillis(bounds[i] * 1000L) : ">= " + formatMillis(bounds[bounds.length - 1] * 1000L);
+                histogram.append("<newline><gray>").append(bucket).append("ms: <white>").append(counts[i]);
+            }
+
+            if (taskStats.getMissed() > 0) {
+                histogram.append("<newline><gray>Missed runs: <white>").append(taskStats.getMissed());
+            }
+
+            statComponents.add((TextComponent) ModuleMessages.TASK_STATS_LINE.get(
+                    Placeholder.unparsed("name", taskStats.getId()),
+                    Placeholder.unparsed("runs", String.valueOf(taskStats.getRuns())),
+                    Placeholder.unparsed("total", formatMillis(taskStats.getTotalNanos())),
+                    Placeholder.unparsed("average", formatMillis(taskStats.getAverageNanos())),
+                    Placeholder.unparsed("max", formatMillis(taskStats.getMaxNanos()))
+            ).hoverEvent(HoverEvent.showText(MessageUtil.deserialize(histogram.toString()))));
+        }
+
+        sendPagedComponents(sender, module.getModuleData().name() + "'s Task Stats", statComponents, page);
+    }
+
+    @Subcommand("swap")
+    @CommandPermission("bitsmodules.command.module.swap")
+    public void onSwap(CommandSender sender, String jarName) {
+        ModuleMessages.SWAPPING_JAR.send(sender, Placeholder.unparsed("jar", jarName));
+
+        if (!moduleManager.swapModuleJar(jarName)) {
+            ModuleMessages.SWAP_FAILED.send(sender, Placeholder.unparsed("jar", jarName));
+            return;
+        }
+
+        ModuleMessages.SWAPPED_JAR.send(sender, Placeholder.unparsed("jar", jarName));
+    }
+
+    @Subcommand("timings")
+    @CommandPermission("bitsmodules.command.module.timings")
+    @CommandCompletion("@moduleIds")
+    public void onTimings(CommandSender sender, String[] args) {
+        ModuleTimings timings = moduleManager.getTimings();
+        int page = 1;
+        String moduleId = null;
+
+        for (String arg : args) {
+            try {
+                page = Integer.parseInt(arg);
+            } catch (NumberFormatException e) {
+                moduleId = arg;
+            }
+        }
+
+        if (moduleId != null) {
+            displayModuleTimings(sender, timings, moduleId, page);
+            return;
+        }
+
+        List<String> moduleIds = new ArrayList<>(timings.getModuleIds());
+
+        if (moduleIds.isEmpty()) {
+            ModuleMessages.NO_TIMINGS.send(sender);
+            return;
+        }
+
+        moduleIds.sort(Comparator.comparingLong(timings::getStartupNanos).reversed());
+
+        List<TextComponent> timingComponents = new ArrayList<>();
+
+        for (String id : moduleIds) {
+            StringBuilder phases = new StringBuilder("<gray>Phases:");
+
+            timings.getTimings(id).forEach((phase, nanos) ->
+                    phases.append("<newline><gray>").append(phase.getDisplayName()).append(": <white>").append(formatMillis(nanos)).append("ms"));
+
+            String name = moduleManager.getModuleByID(id).map(module -> module.getModuleData().name()).orElse(id);
+
+            timingComponents.add((TextComponent) ModuleMessages.TIMINGS_LINE.get(
+                    Placeholder.unparsed("name", name),
+                    Placeholder.unparsed("total", formatMillis(timings.getStartupNanos(id))),
+                    Placeholder.unparsed("change", formatChange(timings.getStartupNanos(id), timings.getPreviousStartupNanos(id)))
+            ).hoverEvent(HoverEvent.showText(MessageUtil.deserialize(phases.toString())))
+                    .clickEvent(ClickEvent.runCommand("/module timings " + id)));
+        }
+
+        sendPagedComponents(sender, "Module Timings", timingComponents, page);
+    }
+
+    private void displayModuleTimings(CommandSender sender, ModuleTimings timings, String moduleId, int page) {
+        Map<ModulePhase, Long> current = timings.getTimings(moduleId);
+        Map<ModulePhase, Long> runtime = timings.getRuntimeTimings(moduleId);
+
+        if (current.isEmpty() && runtime.isEmpty()) {
+            ModuleMessages.NO_TIMINGS.send(sender);
+            return;
+        }
+
+        Map<ModulePhase, Long> previous = timings.getPreviousTimings(moduleId);
+        List<TextComponent> phaseComponents = new ArrayList<>();
+
+        current.forEach((phase, nanos) -> {
+            Long previousNanos = previous.get(phase);
+
+            phaseComponents.add((TextComponent) ModuleMessages.TIMINGS_PHASE_LINE.get(
+                    Placeholder.unparsed("phase", phase.getDisplayName()),
+                    Placeholder.unparsed("time", formatMillis(nanos)),
+                    Placeholder.unparsed("change", formatChange(nanos, previousNanos == null ? -1 : previousNanos))
+            ));
+        });
+
+        Map<ModulePhase, Long> previousRuntime = timings.getPreviousRuntimeTimings(moduleId);
+
+        runtime.forEach((phase, nanos) -> {
+            Long previousNanos = previousRuntime.get(phase);
+
+            phaseComponents.add((TextComponent) ModuleMessages.TIMINGS_PHASE_LINE.get(
+                    Placeholder.unparsed("phase", phase.getDisplayName() + " (runtime)"),
+                    Placeholder.unparsed("time", formatMillis(nanos)),
+                    Placeholder.unparsed("change", formatChange(nanos, previousNanos == null ? -1 : previousNanos))
+            ));
+        });
+
+        sendPagedComponents(sender, moduleId + "'s Timings", phaseComponents, page);
+    }
+
+    private String formatChange(long nanos, long previousNanos) {
+        if (previousNanos < 0) {
+            return "new";
+        }
+
+        long change = nanos - previousNanos;
+        return (change >= 0 ? "+" : "-") + formatMillis(Math.abs(change)) + "ms";
+    }
+
+    private String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000d);
+    }
+
     private void displayPage(CommandSender sender, int page) {
         List<BitsModule> modules = new ArrayList<>(moduleManager.getModulesById().values());
         int pages = (int) Math.ceil(modules.size() / 10.0);
@@ -0,0 +1,29 @@
+package net.bitbylogic.module.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering one lifecycle phase of a module, such as registering,
+ * enabling, reloading or disabling it.
+ */
+@Name("net.bitbylogic.module.Lifecycle")
+@Label("Module Lifecycle")
+@Description("A lifecycle phase of a Bits module")
+@Category({"Bits Modules", "Lifecycle"})
+@StackTrace(false)
+@Threshold("0 ms")
+public class ModuleLifecycleEvent extends Event {
+
+    @Label("Module")
+    public String moduleId;
+
+    @Label("Phase")
+    public String phase;
+
+}
@@ -0,0 +1,31 @@
+package net.bitbylogic.module.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering a single call of a module's event handler.
+ */
+@Name("net.bitbylogic.module.ListenerInvocation")
+@Label("Module Listener Invocation")
+@Description("A call of a Bits module's event handler")
+@Category({"Bits Modules", "Listeners"})
+@StackTrace(false)
+@Threshold("1 ms")
+public class ModuleListenerEvent extends Event {
+
+    @Label("Module")
+    public String moduleId;
+
+    @Label("Listener")
+    public String listener;
+
+    @Label("Event")
+    public String eventType;
+
+}
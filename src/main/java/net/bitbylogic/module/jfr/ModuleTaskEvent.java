@@ -0,0 +1,31 @@
+package net.bitbylogic.module.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering a single run of a module task.
+ */
+@Name("net.bitbylogic.module.TaskExecution")
+@Label("Module Task Execution")
+@Description("A single run of a Bits module task")
+@Category({"Bits Modules", "Tasks"})
+@StackTrace(false)
+@Threshold("1 ms")
+public class ModuleTaskEvent extends Event {
+
+    @Label("Module")
+    public String moduleId;
+
+    @Label("Task")
+    public String taskId;
+
+    @Label("Type")
+    public String taskType;
+
+}
@@ -0,0 +1,50 @@
+package net.bitbylogic.module.jfr;
+
+import lombok.NonNull;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Wraps a module listener's {@link EventExecutor} so every call of the handler is reported
+ * as a {@link ModuleListenerEvent}. When the event is disabled in the running recording the
+ * wrapper only costs an allocation the JIT can remove.
+ */
+public class ModuleTimedExecutor implements EventExecutor {
+
+    private final String moduleId;
+    private final Class<? extends Event> eventClass;
+    private final EventExecutor delegate;
+
+    public ModuleTimedExecutor(@NonNull String moduleId, @NonNull Class<? extends Event> eventClass, @NonNull EventExecutor delegate) {
+        this.moduleId = moduleId;
+        this.eventClass = eventClass;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(@NotNull Listener listener, @NotNull Event event) throws EventException {
+        if (!eventClass.isInstance(event)) {
+            return;
+        }
+
+        ModuleListenerEvent jfrEvent = new ModuleListenerEvent();
+        jfrEvent.begin();
+
+        try {
+            delegate.execute(listener, event);
+        } finally {
+            jfrEvent.end();
+
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.moduleId = moduleId;
+                jfrEvent.listener = listener.getClass().getName();
+                jfrEvent.eventType = event.getEventName();
+                jfrEvent.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package net.bitbylogic.module.loader;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * The isolated class loader of a single module jar.
+ * <p></p>
+ * Classes are looked up in the host plugin's class loader first, so modules share the
+ * framework and server classes, and then in the jar itself. Each jar gets its own
+ * loader, which is closed when the jar is unloaded so the old classes can be collected.
+ */
+@Getter
+public class ModuleClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final String jarName;
+
+    public ModuleClassLoader(@NonNull String jarName, @NonNull URL jarUrl, @NonNull ClassLoader parent) {
+        super("bits-module-" + jarName, new URL[]{jarUrl}, parent);
+        this.jarName = jarName;
+    }
+
+}
@@ -0,0 +1,128 @@
+package net.bitbylogic.module.loader;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.module.BitsModule;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * A module jar loaded from the manager's {@code modules/} folder.
+ * <p></p>
+ * The jar must contain a {@code module.yml} listing the module classes to register:
+ * <pre>
+ * modules:
+ *   - com.example.ExampleModule
+ * </pre>
+ * The jar is copied to a temporary file before it is opened, so the original can be
+ * overwritten with a new version while the old one is still loaded.
+ */
+@Getter
+public class ModuleJar {
+
+    public static final String DESCRIPTION_FILE = "module.yml";
+
+    private final String name;
+    private final File file;
+    private final ModuleClassLoader classLoader;
+    private final List<Class<? extends BitsModule>> moduleClasses;
+
+    private final Path shadowCopy;
+
+    private ModuleJar(@NonNull String name, @NonNull File file, @NonNull ModuleClassLoader classLoader,
+                      @NonNull List<Class<? extends BitsModule>> moduleClasses, @NonNull Path shadowCopy) {
+        this.name = name;
+        this.file = file;
+        this.classLoader = classLoader;
+        this.moduleClasses = Collections.unmodifiableList(moduleClasses);
+        this.shadowCopy = shadowCopy;
+    }
+
+    /**
+     * Opens a module jar in a new class loader and loads the module classes its
+     * {@code module.yml} lists.
+     *
+     * @param file   The jar file.
+     * @param parent The class loader the jar's loader delegates to, normally the host plugin's.
+     * @return The opened jar.
+     * @throws IOException If the jar can't be read, has no valid {@code module.yml} or lists
+     *                     a class that doesn't exist or isn't a {@link BitsModule}.
+     */
+    public static ModuleJar open(@NonNull File file, @NonNull ClassLoader parent) throws IOException {
+        String name = file.getName();
+        List<String> classNames;
+
+        try (JarFile jarFile = new JarFile(file)) {
+            JarEntry entry = jarFile.getJarEntry(DESCRIPTION_FILE);
+
+            if (entry == null) {
+                throw new IOException("Jar '" + name + "' does not contain a " + DESCRIPTION_FILE);
+            }
+
+            try (Reader reader = new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                classNames = YamlConfiguration.loadConfiguration(reader).getStringList("modules");
+            }
+        }
+
+        if (classNames.isEmpty()) {
+            throw new IOException("The " + DESCRIPTION_FILE + " of jar '" + name + "' does not list any modules");
+        }
+
+        Path shadowCopy = Files.createTempFile("bits-module-", ".jar");
+        Files.copy(file.toPath(), shadowCopy, StandardCopyOption.REPLACE_EXISTING);
+        shadowCopy.toFile().deleteOnExit();
+
+        ModuleClassLoader classLoader = new ModuleClassLoader(name, shadowCopy.toUri().toURL(), parent);
+        List<Class<? extends BitsModule>> moduleClasses = new ArrayList<>();
+
+        try {
+            for (String className : classNames) {
+                Class<?> clazz = Class.forName(className, true, classLoader);
+
+                if (!BitsModule.class.isAssignableFrom(clazz)) {
+                    throw new IOException("Class '" + className + "' in jar '" + name + "' is not a module");
+                }
+
+                moduleClasses.add(clazz.asSubclass(BitsModule.class));
+            }
+        } catch (ClassNotFoundException | LinkageError | IOException e) {
+            classLoader.close();
+            Files.deleteIfExists(shadowCopy);
+
+            throw e instanceof IOException ioException ? ioException : new IOException("Unable to load classes from jar '" + name + "'", e);
+        }
+
+        return new ModuleJar(name, file, classLoader, moduleClasses, shadowCopy);
+    }
+
+    /**
+     * @param moduleClass A module class.
+     * @return Whether the class was loaded from this jar.
+     */
+    public boolean contains(@NonNull Class<?> moduleClass) {
+        return moduleClass.getClassLoader() == classLoader;
+    }
+
+    /**
+     * Closes the jar's class loader and deletes its temporary copy. Its modules must
+     * already be unregistered.
+     */
+    public void close() throws IOException {
+        classLoader.close();
+        Files.deleteIfExists(shadowCopy);
+    }
+
+}
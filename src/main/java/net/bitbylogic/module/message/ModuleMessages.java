@@ -24,6 +24,17 @@ public class ModuleMessages extends MessageGroup {
     public static MessageKey MODULE_LIST_FOOTER;
     public static MessageKey NO_TASKS;
     public static MessageKey TASK_LINE;
+    public static MessageKey TASK_STATS_LINE;
+    public static MessageKey ASYNC_LIMITER_STATS;
+    public static MessageKey NO_TIMINGS;
+    public static MessageKey TIMINGS_LINE;
+    public static MessageKey TIMINGS_PHASE_LINE;
+
+    public static MessageKey SWAPPING_JAR;
+    public static MessageKey SWAPPED_JAR;
+    public static MessageKey SWAP_FAILED;
+
+    public static MessageKey LAZY_ACTIVATION_FAILED;
 
     public ModuleMessages() {
         super("Bits-Modules");
@@ -38,7 +49,10 @@ public class ModuleMessages extends MessageGroup {
                 "<#E5E9F0>/module reload <id> <#8A8F99>• <#B4BCC8>Reload the specified module's config.",
                 "<#E5E9F0>/module enable <id> <#8A8F99>• <#B4BCC8>Enable the specified module.",
                 "<#E5E9F0>/module disable <id> <#8A8F99>• <#B4BCC8>Disable the specified module.",
-                "<#E5E9F0>/module toggle <id> <#8A8F99>• <#B4BCC8>Toggles the specified module."
+                "<#E5E9F0>/module toggle <id> <#8A8F99>• <#B4BCC8>Toggles the specified module.",
+                "<#E5E9F0>/module tasks <id> [--stats] <page> <#8A8F99>• <#B4BCC8>List the specified module's tasks or their stats.",
+                "<#E5E9F0>/module timings [id] <page> <#8A8F99>• <#B4BCC8>Show module startup and lifecycle timings.",
+                "<#E5E9F0>/module swap <jar> <#8A8F99>• <#B4BCC8>Load or hot swap a module jar from the modules folder."
         ));
 
         INVALID_MODULE = register("Invalid-Module", "<#FF6B6B>Invalid module: <id>");
@@ -77,5 +91,21 @@ public class ModuleMessages extends MessageGroup {
         NO_TASKS = register("No-Tasks",
                 "<#FF6B6B>Module <id> has no active tasks.");
         TASK_LINE = register("Task-Line", "<#8A8F99>- <#B4BCC8><name> <#8A8F99>(<#B4BCC8>Type:</#B4BCC8> <type><#8A8F99>)");
+        TASK_STATS_LINE = register("Task-Stats-Line",
+                "<#8A8F99>- <#B4BCC8><name> <#8A8F99>(<#B4BCC8>Runs:</#B4BCC8> <runs><#8A8F99>, <#B4BCC8>Total:</#B4BCC8> <total>ms<#8A8F99>, <#B4BCC8>Avg:</#B4BCC8> <average>ms<#8A8F99>, <#B4BCC8>Max:</#B4BCC8> <max>ms<#8A8F99>)");
+        ASYNC_LIMITER_STATS = register("Async-Limiter-Stats",
+                "<#8A8F99>Async limiter <#8A8F99>(<#B4BCC8>In flight:</#B4BCC8> <in_flight>/<max><#8A8F99>, <#B4BCC8>Pending:</#B4BCC8> <pending><#8A8F99>, <#B4BCC8>Rejected:</#B4BCC8> <rejected><#8A8F99>, <#B4BCC8>Coalesced:</#B4BCC8> <coalesced><#8A8F99>, <#B4BCC8>Skipped:</#B4BCC8> <skipped><#8A8F99>, <#B4BCC8>Caller runs:</#B4BCC8> <caller_runs><#8A8F99>)");
+
+        NO_TIMINGS = register("No-Timings", "<#FF6B6B>No timings have been recorded.");
+        TIMINGS_LINE = register("Timings-Line",
+                "<#8A8F99>- <#B4BCC8><name> <#8A8F99>(<#B4BCC8>Startup:</#B4BCC8> <total>ms<#8A8F99>, <#B4BCC8>Change:</#B4BCC8> <change><#8A8F99>)");
+        TIMINGS_PHASE_LINE = register("Timings-Phase-Line",
+                "<#8A8F99>- <#B4BCC8><phase> <#8A8F99>(<#B4BCC8>Time:</#B4BCC8> <time>ms<#8A8F99>, <#B4BCC8>Change:</#B4BCC8> <change><#8A8F99>)");
+
+        SWAPPING_JAR = register("Swapping-Jar", "<#7ED957>Swapping module jar <#8A8F99>(<#B4BCC8>Jar:</#B4BCC8> <jar><#8A8F99>)");
+        SWAPPED_JAR = register("Swapped-Jar", "<#7ED957>Swapped module jar <#8A8F99>(<#B4BCC8>Jar:</#B4BCC8> <jar><#8A8F99>)");
+        SWAP_FAILED = register("Swap-Failed", "<#FF6B6B>Couldn't swap module jar <jar>, check the console for details.");
+
+        LAZY_ACTIVATION_FAILED = register("Lazy-Activation-Failed", "<#FF6B6B>Module <id> isn't available right now, check the console for details.");
     }
 }
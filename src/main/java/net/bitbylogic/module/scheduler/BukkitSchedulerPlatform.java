@@ -0,0 +1,103 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs module tasks on the Bukkit scheduler. Location- and entity-bound tasks run on the main
+ * thread, entity-bound tasks stop once their entity is no longer valid.
+ */
+public final class BukkitSchedulerPlatform implements ModuleSchedulerPlatform {
+
+    public static final BukkitSchedulerPlatform INSTANCE = new BukkitSchedulerPlatform();
+
+    private BukkitSchedulerPlatform() {
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public ModuleTaskHandle runGlobal(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+
+        if (period >= 0) {
+            return handle(scheduler.runTaskTimer(plugin, runnable, delay, period));
+        }
+
+        return handle(delay > 0 ? scheduler.runTaskLater(plugin, runnable, delay) : scheduler.runTask(plugin, runnable));
+    }
+
+    @Override
+    public ModuleTaskHandle runAt(@NonNull Plugin plugin, @NonNull Location location, @NonNull Runnable runnable, long delay, long period) {
+        return runGlobal(plugin, runnable, delay, period);
+    }
+
+    @Override
+    public @Nullable ModuleTaskHandle runFor(@NonNull Plugin plugin, @NonNull Entity entity, @NonNull Runnable runnable,
+                                             @Nullable Runnable retired, long delay, long period) {
+        if (!entity.isValid()) {
+            return null;
+        }
+
+        BukkitRunnable bukkitRunnable = new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (entity.isValid()) {
+                    runnable.run();
+                    return;
+                }
+
+                cancel();
+
+                if (retired != null) {
+                    retired.run();
+                }
+            }
+        };
+
+        if (period >= 0) {
+            return handle(bukkitRunnable.runTaskTimer(plugin, delay, period));
+        }
+
+        return handle(delay > 0 ? bukkitRunnable.runTaskLater(plugin, delay) : bukkitRunnable.runTask(plugin));
+    }
+
+    @Override
+    public ModuleTaskHandle runAsync(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+
+        if (period >= 0) {
+            return handle(scheduler.runTaskTimerAsynchronously(plugin, runnable, delay, period));
+        }
+
+        return handle(delay > 0
+                ? scheduler.runTaskLaterAsynchronously(plugin, runnable, delay)
+                : scheduler.runTaskAsynchronously(plugin, runnable));
+    }
+
+    private static ModuleTaskHandle handle(BukkitTask task) {
+        return new ModuleTaskHandle() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isActive() {
+                int taskId = task.getTaskId();
+                return Bukkit.getScheduler().isCurrentlyRunning(taskId) || Bukkit.getScheduler().isQueued(taskId);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,128 @@
+package net.bitbylogic.module.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs module tasks on Paper's region schedulers, for region-threaded (Folia) servers.
+ * <p></p>
+ * Global tasks go to the {@link io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler},
+ * location-bound tasks to the {@link io.papermc.paper.threadedregions.scheduler.RegionScheduler}
+ * and entity-bound tasks to the entity's own
+ * {@link io.papermc.paper.threadedregions.scheduler.EntityScheduler}. Async tasks use the
+ * {@link io.papermc.paper.threadedregions.scheduler.AsyncScheduler}, with ticks converted to
+ * wall-clock time. Those schedulers reject a delay or period below one tick, so both are
+ * clamped like the Bukkit scheduler would treat them.
+ */
+public final class FoliaSchedulerPlatform implements ModuleSchedulerPlatform {
+
+    public static final FoliaSchedulerPlatform INSTANCE = new FoliaSchedulerPlatform();
+
+    private static final boolean SUPPORTED = classExists("io.papermc.paper.threadedregions.RegionizedServer");
+
+    private FoliaSchedulerPlatform() {
+    }
+
+    /**
+     * @return {@code true} if the server is region-threaded
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public ModuleTaskHandle runGlobal(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        Consumer<ScheduledTask> consumer = task -> runnable.run();
+
+        if (period >= 0) {
+            return handle(Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, consumer, Math.max(1, delay), Math.max(1, period)));
+        }
+
+        return handle(delay > 0
+                ? Bukkit.getGlobalRegionScheduler().runDelayed(plugin, consumer, delay)
+                : Bukkit.getGlobalRegionScheduler().run(plugin, consumer));
+    }
+
+    @Override
+    public ModuleTaskHandle runAt(@NonNull Plugin plugin, @NonNull Location location, @NonNull Runnable runnable, long delay, long period) {
+        Consumer<ScheduledTask> consumer = task -> runnable.run();
+
+        if (period >= 0) {
+            return handle(Bukkit.getRegionScheduler().runAtFixedRate(plugin, location, consumer, Math.max(1, delay), Math.max(1, period)));
+        }
+
+        return handle(delay > 0
+                ? Bukkit.getRegionScheduler().runDelayed(plugin, location, consumer, delay)
+                : Bukkit.getRegionScheduler().run(plugin, location, consumer));
+    }
+
+    @Override
+    public @Nullable ModuleTaskHandle runFor(@NonNull Plugin plugin, @NonNull Entity entity, @NonNull Runnable runnable,
+                                             @Nullable Runnable retired, long delay, long period) {
+        Consumer<ScheduledTask> consumer = task -> runnable.run();
+        ScheduledTask scheduledTask;
+
+        if (period >= 0) {
+            scheduledTask = entity.getScheduler().runAtFixedRate(plugin, consumer, retired, Math.max(1, delay), Math.max(1, period));
+        } else if (delay > 0) {
+            scheduledTask = entity.getScheduler().runDelayed(plugin, consumer, retired, delay);
+        } else {
+            scheduledTask = entity.getScheduler().run(plugin, consumer, retired);
+        }
+
+        return scheduledTask == null ? null : handle(scheduledTask);
+    }
+
+    @Override
+    public ModuleTaskHandle runAsync(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        Consumer<ScheduledTask> consumer = task -> runnable.run();
+        long delayMillis = Math.max(0, delay) * ModuleScheduler.MILLIS_PER_TICK;
+
+        if (period >= 0) {
+            return handle(Bukkit.getAsyncScheduler().runAtFixedRate(plugin, consumer, delayMillis,
+                    Math.max(1, period) * ModuleScheduler.MILLIS_PER_TICK, TimeUnit.MILLISECONDS));
+        }
+
+        return handle(delayMillis > 0
+                ? Bukkit.getAsyncScheduler().runDelayed(plugin, consumer, delayMillis, TimeUnit.MILLISECONDS)
+                : Bukkit.getAsyncScheduler().runNow(plugin, consumer));
+    }
+
+    private static ModuleTaskHandle handle(ScheduledTask task) {
+        return new ModuleTaskHandle() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isActive() {
+                ScheduledTask.ExecutionState state = task.getExecutionState();
+                return state == ScheduledTask.ExecutionState.IDLE || state == ScheduledTask.ExecutionState.RUNNING;
+            }
+        };
+    }
+
+    private static boolean classExists(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+}
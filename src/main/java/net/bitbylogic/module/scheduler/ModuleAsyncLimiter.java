@@ -0,0 +1,302 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Caps how many of a module's async task runs may execute at once.
+ * <p></p>
+ * Runs that arrive while the limit is reached wait in a bounded pending queue and are
+ * dispatched, in order, as running ones finish. Once the pending queue is full the
+ * {@link RejectionPolicy} decides what happens to further runs. The limiter is
+ * disabled (unlimited) until {@link #setMaxInFlight(int)} is given a positive value.
+ * <p></p>
+ * Repeating tasks are never queued: a timer run that finds no free slot is skipped and
+ * the timer tries again on its next run, so a slow backend can't pile up its runs.
+ */
+public class ModuleAsyncLimiter {
+
+    private static final int DEFAULT_PENDING_CAPACITY = 1024;
+
+    private final Consumer<ModuleTask> dispatcher;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Queue<ModuleTask> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> pendingIds = new ConcurrentHashMap<>();
+    private final Map<String, ModuleTask> coalescedLatest = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * The maximum number of async runs executing at once, zero or less for no limit.
+     */
+    @Getter
+    private volatile int maxInFlight;
+
+    @Getter
+    @Setter
+    private volatile int pendingCapacity = DEFAULT_PENDING_CAPACITY;
+
+    @Getter
+    @Setter
+    private volatile @NonNull RejectionPolicy rejectionPolicy = RejectionPolicy.DROP;
+
+    /**
+     * @param dispatcher starts a pending task on the async backend; the task already holds
+     *                   a slot and must call {@link #release()} once it has run
+     */
+    ModuleAsyncLimiter(@NonNull Consumer<ModuleTask> dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Sets the maximum number of async runs executing at once. Raising the limit, or
+     * removing it with zero or less, dispatches pending runs that now fit right away.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        drain();
+    }
+
+    public boolean isEnabled() {
+        return maxInFlight > 0;
+    }
+
+    /**
+     * @return {@code true} if a new run could start right away without queueing
+     */
+    public boolean hasCapacity() {
+        return !isEnabled() || (pending.isEmpty() && inFlight.get() < maxInFlight);
+    }
+
+    /**
+     * Claims a slot for a run. Always succeeds while the limiter is disabled.
+     *
+     * @return {@code true} if a slot was claimed and must be released once the run finishes
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            int max = maxInFlight;
+
+            if (max > 0 && current >= max) {
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot and hands it to the next pending run, if any.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Queues a run that couldn't claim a slot, applying the rejection policy if it can't be queued.
+     *
+     * @param task the task whose run is deferred
+     */
+    public void defer(@NonNull ModuleTask task) {
+        RejectionPolicy policy = rejectionPolicy;
+        String key = task.getId().toLowerCase(Locale.ROOT);
+
+        if (policy == RejectionPolicy.COALESCE) {
+            AtomicBoolean merged = new AtomicBoolean();
+            AtomicReference<ModuleTask> replaced = new AtomicReference<>();
+
+            pendingIds.compute(key, (id, count) -> {
+                if (count == null) {
+                    return 1;
+                }
+
+                merged.set(true);
+                replaced.set(coalescedLatest.put(id, task));
+                return count;
+            });
+
+            if (merged.get()) {
+                coalesced.increment();
+
+                if (replaced.get() != null) {
+                    cancelIfOneShot(replaced.get());
+                }
+
+                return;
+            }
+        } else {
+            pendingIds.merge(key, 1, Integer::sum);
+        }
+
+        int count;
+
+        do {
+            count = pendingCount.get();
+
+            if (count >= pendingCapacity) {
+                ModuleTask latest = removePendingId(key);
+
+                if (latest != null) {
+                    reject(latest, policy);
+                }
+
+                reject(task, policy);
+                return;
+            }
+        } while (!pendingCount.compareAndSet(count, count + 1));
+
+        pending.add(task);
+        drain();
+    }
+
+    /**
+     * Records a run of a repeating task that was skipped because no slot was free.
+     */
+    void skip() {
+        skipped.increment();
+    }
+
+    /**
+     * Drops every pending run.
+     */
+    public void clear() {
+        pending.clear();
+        pendingIds.clear();
+        coalescedLatest.clear();
+        pendingCount.set(0);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    private void reject(ModuleTask task, RejectionPolicy policy) {
+        if (policy == RejectionPolicy.CALLER_RUNS) {
+            callerRuns.increment();
+            task.execute(false);
+            return;
+        }
+
+        rejected.increment();
+        cancelIfOneShot(task);
+    }
+
+    /**
+     * One-shot runs that won't be queued are cancelled, so they leave the registry and
+     * complete their futures. Timers simply try again on their next run.
+     */
+    private void cancelIfOneShot(ModuleTask task) {
+        if (!task.getType().isRepeating()) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Releases one pending run of an id. Once none are left, the latest run merged into it
+     * under {@link RejectionPolicy#COALESCE} is handed back, in the same atomic step as the
+     * release, so a run merged concurrently is never stranded.
+     *
+     * @return the latest merged run, or {@code null} if none replaced the queued one
+     */
+    private @Nullable ModuleTask removePendingId(String key) {
+        AtomicReference<ModuleTask> latest = new AtomicReference<>();
+
+        pendingIds.computeIfPresent(key, (id, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+
+            latest.set(coalescedLatest.remove(id));
+            return null;
+        });
+
+        return latest.get();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty() && tryAcquire()) {
+            ModuleTask next = pending.poll();
+
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+
+            pendingCount.decrementAndGet();
+            ModuleTask latest = removePendingId(next.getId().toLowerCase(Locale.ROOT));
+
+            if (latest != null && latest != next) {
+                cancelIfOneShot(next);
+                next = latest;
+            }
+
+            dispatcher.accept(next);
+        }
+    }
+
+    public enum RejectionPolicy {
+
+        /**
+         * Discard the run. One-shot tasks are cancelled, timers try again on their next run.
+         */
+        DROP,
+
+        /**
+         * Run the task immediately on the thread that submitted or fired it, outside the limit.
+         * When the submitting thread is the main thread this slows the submitter down instead
+         * of growing the queue.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Keep at most one pending run per task id. A later run replaces the waiting one, so the
+         * most recent submission is the one that runs, and the replaced one-shot task is cancelled.
+         * Runs for ids that aren't pending are discarded once the queue is full.
+         */
+        COALESCE;
+
+    }
+
+}
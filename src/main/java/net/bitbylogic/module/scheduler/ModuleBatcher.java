@@ -0,0 +1,152 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.module.BitsModule;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Collects {@code (key, value)} submissions from any number of producers and hands them
+ * to the module as a single batch per window.
+ * <p></p>
+ * Submissions for a key that is already waiting in the current window are merged into
+ * the waiting value (by default the newest value wins), so a key fired hundreds of
+ * times per second is processed once per window. A window opens on the first
+ * submission and flushes after the configured interval, on the main thread or
+ * asynchronously depending on how the batcher was created.
+ * <p></p>
+ * Like debounce and throttle slots, the batcher reuses a single {@link ModuleTask} for its
+ * flushes, which never becomes a child of the task submitting to it. If that task is cancelled
+ * from outside, for example by a drain or {@link ModuleScheduler#cancelTask(String)}, the
+ * window closes and the next submission opens a new one.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ModuleBatcher<K, V> {
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final long intervalTicks;
+
+    @Getter
+    private final boolean async;
+
+    private final BitsModule module;
+    private final ModuleScheduler scheduler;
+    private final BinaryOperator<V> merger;
+    private final Consumer<Map<K, V>> consumer;
+    private final ModuleTask task;
+
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+
+    ModuleBatcher(@NonNull BitsModule module, @NonNull ModuleScheduler scheduler, @NonNull String id, long intervalTicks,
+                  boolean async, @NonNull BinaryOperator<V> merger, @NonNull Consumer<Map<K, V>> consumer) {
+        this.module = module;
+        this.scheduler = scheduler;
+        this.id = id;
+        this.intervalTicks = Math.max(1, intervalTicks);
+        this.async = async;
+        this.merger = merger;
+        this.consumer = consumer;
+        this.task = scheduler.createSlotTask(id, async, this::flush);
+        this.task.onCancel(() -> scheduled.set(false));
+    }
+
+    /**
+     * Submits a value for the given key, merging it with any value already waiting for that key.
+     *
+     * @param key   the key to coalesce on
+     * @param value the value to submit
+     */
+    public void submit(@NonNull K key, @NonNull V value) {
+        submitted.increment();
+        pending.merge(key, value, merger);
+
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (scheduler.scheduleSlot(task, intervalTicks) == -1) {
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Immediately hands every waiting entry to the consumer on the calling thread.
+     */
+    public void flush() {
+        scheduled.set(false);
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<K, V> batch = new HashMap<>();
+
+        for (Map.Entry<K, V> entry : pending.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+
+            if (pending.remove(key, value)) {
+                batch.put(key, value);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        batches.increment();
+        flushed.add(batch.size());
+
+        try {
+            consumer.accept(batch);
+        } catch (Exception e) {
+            module.log(Level.SEVERE, "Exception in batch consumer '" + id + "': " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the number of keys waiting for the next flush
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getFlushed() {
+        return flushed.sum();
+    }
+
+    /**
+     * @return how many submissions were merged into an already waiting value
+     */
+    public long getCoalesced() {
+        return Math.max(0, getSubmitted() - getFlushed() - getPendingCount());
+    }
+
+}
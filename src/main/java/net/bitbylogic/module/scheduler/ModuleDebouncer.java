@@ -0,0 +1,108 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single reusable debounce slot for one task id.
+ * <p></p>
+ * Every call moves the slot's deadline forward and replaces the action to run, but only the
+ * first call of a quiet period schedules a task. When that task fires before the deadline
+ * it re-arms itself for the remaining time, so a burst of calls costs one scheduled run
+ * per re-arm instead of a cancel and a new task per call. The slot owns a single
+ * {@link ModuleTask} that is scheduled again for every run, and is disarmed if that task
+ * is cancelled from outside, for example by a drain.
+ */
+class ModuleDebouncer {
+
+    private final ModuleScheduler scheduler;
+    private final String id;
+
+    private final ModuleTask task;
+
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private final AtomicLong calls = new AtomicLong();
+
+    private volatile Runnable action;
+    private volatile long deadlineNanos;
+    private volatile boolean cancelled;
+
+    ModuleDebouncer(@NonNull ModuleScheduler scheduler, @NonNull String id, boolean async) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.task = scheduler.createSlotTask(id, async, this::fire);
+        this.task.onCancel(() -> armed.set(false));
+    }
+
+    /**
+     * Runs the action once no further call has been made for {@code delay} ticks.
+     *
+     * @param delay    the quiet period in ticks
+     * @param runnable the action to run, replacing any action from earlier calls
+     */
+    void call(long delay, @NonNull Runnable runnable) {
+        action = runnable;
+        deadlineNanos = System.nanoTime() + Math.max(1, delay) * TimeUnit.MILLISECONDS.toNanos(ModuleScheduler.MILLIS_PER_TICK);
+        calls.incrementAndGet();
+
+        if (armed.compareAndSet(false, true)) {
+            arm(Math.max(1, delay));
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        action = null;
+    }
+
+    private void fire() {
+        if (cancelled) {
+            return;
+        }
+
+        long seen = calls.get();
+        long remaining = deadlineNanos - System.nanoTime();
+
+        if (remaining > 0) {
+            arm(toTicks(remaining));
+            return;
+        }
+
+        Runnable current = action;
+        armed.set(false);
+
+        if (calls.get() != seen) {
+            if (armed.compareAndSet(false, true)) {
+                arm(toTicks(deadlineNanos - System.nanoTime()));
+            }
+
+            return;
+        }
+
+        if (current == null) {
+            return;
+        }
+
+        try {
+            current.run();
+        } catch (Exception e) {
+            task.getModuleInstance().getPlugin().getLogger().severe("Exception in ModuleTask '" + id + "': " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void arm(long delayTicks) {
+        if (scheduler.scheduleSlot(task, delayTicks) == -1) {
+            armed.set(false);
+        }
+    }
+
+    private static long toTicks(long nanos) {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(ModuleScheduler.MILLIS_PER_TICK);
+        return Math.max(1, (nanos + tickNanos - 1) / tickNanos);
+    }
+
+}
@@ -0,0 +1,103 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an async {@link ModuleTask} at a fixed wall-clock rate, independent of the server's tick rate.
+ * <p></p>
+ * Every run is scheduled against the timer's original start time ({@code start + n * period})
+ * rather than the end of the previous run, so scheduling jitter and slow runs don't accumulate
+ * into drift. When a run overruns one or more later slots, those slots are skipped instead of
+ * being run back-to-back, and counted as missed in the task's {@link ModuleTaskStats}.
+ * <p></p>
+ * Cancelling the timer from another thread interrupts a run that is in progress, so a module
+ * being disabled doesn't have to wait for it. A run that cancels its own timer isn't interrupted.
+ */
+class ModuleFixedRateTimer implements ModuleTaskHandle, Runnable {
+
+    private final ModuleTask task;
+    private final ScheduledExecutorService executor;
+    private final long startNanos;
+    private final long periodNanos;
+
+    private long runIndex;
+
+    private volatile ScheduledFuture<?> next;
+    private volatile Thread runner;
+    private volatile boolean cancelled;
+
+    ModuleFixedRateTimer(@NonNull ModuleTask task, @NonNull ScheduledExecutorService executor, long initialDelayNanos, long periodNanos) {
+        this.task = task;
+        this.executor = executor;
+        this.startNanos = System.nanoTime() + Math.max(0, initialDelayNanos);
+        this.periodNanos = Math.max(1, periodNanos);
+    }
+
+    void start() {
+        scheduleAt(startNanos);
+    }
+
+    @Override
+    public void run() {
+        if (cancelled) {
+            return;
+        }
+
+        runner = Thread.currentThread();
+
+        try {
+            task.execute();
+        } finally {
+            runner = null;
+        }
+
+        if (cancelled) {
+            return;
+        }
+
+        runIndex++;
+
+        long deadline = startNanos + runIndex * periodNanos;
+        long now = System.nanoTime();
+
+        if (deadline <= now) {
+            long skipped = (now - deadline) / periodNanos + 1;
+
+            runIndex += skipped;
+            deadline += skipped * periodNanos;
+            task.getStats().recordMissed(skipped);
+        }
+
+        scheduleAt(deadline);
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+
+        ScheduledFuture<?> future = next;
+
+        if (future != null) {
+            future.cancel(runner != null && runner != Thread.currentThread());
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return !cancelled;
+    }
+
+    private void scheduleAt(long deadlineNanos) {
+        try {
+            next = executor.schedule(this, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            cancelled = true;
+        }
+    }
+
+}
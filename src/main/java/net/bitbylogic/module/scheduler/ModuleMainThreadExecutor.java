@@ -0,0 +1,127 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import net.bitbylogic.module.BitsModule;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * An {@link Executor} that runs commands on the main thread in one batch per tick.
+ * <p></p>
+ * Used to deliver {@link java.util.concurrent.CompletableFuture} continuations back to
+ * the main thread without scheduling a task for each one. Commands submitted while a
+ * batch is running are deferred to the next tick. Commands are rejected once the
+ * module is disabled, which completes the dependent future exceptionally.
+ * <p></p>
+ * The driving task only runs while commands are queued, it stops after a batch leaves the
+ * queue empty and starts again with the next command.
+ */
+public class ModuleMainThreadExecutor implements Executor {
+
+    private final BitsModule module;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private volatile ModuleTaskHandle driver;
+
+    public ModuleMainThreadExecutor(@NonNull BitsModule module) {
+        this.module = module;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        if (!module.isEnabled()) {
+            throw new RejectedExecutionException("Module '" + module.getModuleData().id() + "' is disabled.");
+        }
+
+        queue.add(command);
+        depth.incrementAndGet();
+        startDriver();
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Stops the driving task and discards any commands that haven't run.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (driver != null) {
+                driver.cancel();
+                driver = null;
+            }
+        }
+
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+        }
+    }
+
+    private void startDriver() {
+        if (driver != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (driver == null) {
+                driver = module.getScheduler().getPlatform().runGlobal(module.getPlugin(), this::drain, 1L, 1L);
+            }
+        }
+    }
+
+    private void drain() {
+        int batch = depth.get();
+
+        for (int i = 0; i < batch; i++) {
+            Runnable command = queue.poll();
+
+            if (command == null) {
+                break;
+            }
+
+            depth.decrementAndGet();
+
+            try {
+                command.run();
+            } catch (Exception e) {
+                module.log(Level.SEVERE, "Exception in main thread continuation: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        stopIfIdle();
+    }
+
+    /**
+     * Stops the driving task once the queue is empty. A command submitted meanwhile either
+     * sees no driver and starts one, or saw the old one, in which case the re-check below
+     * starts a new one for it.
+     */
+    private void stopIfIdle() {
+        if (!queue.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!queue.isEmpty() || driver == null) {
+                return;
+            }
+
+            driver.cancel();
+            driver = null;
+        }
+
+        if (!queue.isEmpty()) {
+            startDriver();
+        }
+    }
+
+}
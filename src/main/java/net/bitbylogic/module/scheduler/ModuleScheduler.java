@@ -2,314 +2,1372 @@ package net.bitbylogic.module.scheduler;
 
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import net.bitbylogic.module.BitsModule;
-import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-@RequiredArgsConstructor
+/**
+ * Schedules and tracks the tasks of a single module.
+ * <p></p>
+ * The {@code runTask} methods return a task id, or {@code -1} if the module is disabled. Only
+ * async tasks on the {@link AsyncBackend#BUKKIT} backend of a regular server are Bukkit tasks.
+ * Every other task, including every sync task, gets a negative id that the Bukkit scheduler
+ * doesn't know about, so {@code Bukkit.getScheduler().cancelTask(id)} and {@code isQueued(id)}
+ * silently do nothing for it. Use {@link #cancelTask(int)} and {@link #isQueued(int)}, which
+ * work for every id, or keep the task id string and use {@link #cancelTask(String)}.
+ */
 public class ModuleScheduler {
 
+    /**
+     * Caps the number of task ids whose stats are retained, so modules that generate
+     * ids per player or per entity don't grow the stats map without bound.
+     */
+    private static final int MAX_TRACKED_STATS = 1024;
+
+    static final long MILLIS_PER_TICK = 50L;
+
+    /**
+     * Task ids handed out to tasks that aren't backed by a Bukkit task, such as those on the
+     * timing wheel, a region scheduler or virtual threads. They count down from -2 so they never
+     * collide with Bukkit task ids or the -1 failure value, see {@link #cancelTask(int)}, and wrap
+     * back to -2 once they run out rather than overflowing into the positive range.
+     */
+    private static final AtomicInteger LOCAL_TASK_IDS = new AtomicInteger(-2);
+
     @Getter
-    private final List<ModuleTask> tasks = new ArrayList<>();
+    private final ModuleTaskRegistry registry = new ModuleTaskRegistry();
+
+    private final Map<String, ModuleTaskStats> statsById = new ConcurrentHashMap<>();
 
     private final BitsModule module;
 
+    /**
+     * The backend async tasks are submitted to. Tasks keep the backend they were
+     * scheduled with if this is changed later.
+     */
+    @Getter
+    @Setter
+    private volatile @NonNull AsyncBackend asyncBackend = AsyncBackend.BUKKIT;
+
+    /**
+     * The server scheduler tasks are run on, detected at startup.
+     */
+    @Getter
+    @Setter
+    private volatile @NonNull ModuleSchedulerPlatform platform = ModuleSchedulerPlatform.detect();
+
+    private ExecutorService virtualExecutor;
+
+    private ScheduledExecutorService timerExecutor;
+
+    @Getter
+    private final ModuleWorkQueue workQueue;
+
+    @Getter
+    private final ModuleTimingWheel timingWheel;
+
+    private final List<ModuleBatcher<?, ?>> batchers = new CopyOnWriteArrayList<>();
+
+    @Getter
+    private final ModuleMainThreadExecutor mainThreadExecutor;
+
+    private final Set<CompletableFuture<?>> futures = ConcurrentHashMap.newKeySet();
+
+    /**
+     * How long a single run of a sync task may take before the watchdog reports it, in
+     * milliseconds. Zero or less disables reporting for tasks without their own threshold.
+     */
+    @Getter
+    @Setter
+    private volatile long slowTaskThresholdMillis;
+
+    private final Map<String, Long> slowTaskThresholds = new ConcurrentHashMap<>();
+
+    @Getter
+    private final ModuleAsyncLimiter asyncLimiter = new ModuleAsyncLimiter(this::dispatchAdmitted);
+
+    /**
+     * How long {@link #drain()} waits for in-flight async runs to finish when the module is
+     * disabled, in milliseconds.
+     */
+    @Getter
+    @Setter
+    private volatile long drainTimeoutMillis = 500L;
+
+    private final Set<ActiveRun> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Object drainLock = new Object();
+    private volatile boolean draining;
+
+    private final Map<String, ModuleDebouncer> debouncers = new ConcurrentHashMap<>();
+    private final Map<String, ModuleThrottler> throttlers = new ConcurrentHashMap<>();
+
+    public ModuleScheduler(@NonNull BitsModule module) {
+        this.module = module;
+        this.workQueue = new ModuleWorkQueue(module);
+        this.timingWheel = new ModuleTimingWheel(module);
+        this.mainThreadExecutor = new ModuleMainThreadExecutor(module);
+    }
+
+    /**
+     * Runs a task on the main thread on the next tick.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
     public int runTask(@NonNull String id, @NonNull ModuleRunnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
-        }
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), syncDispatcher(0, -1));
+    }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        };
+    /**
+     * Runs a task on the main thread on the next tick.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTask(@NonNull String id, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), syncDispatcher(0, -1));
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+    /**
+     * Runs a task asynchronously.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskAsync(@NonNull String id, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE_ASYNC, runnable), asyncDispatcher(0, -1));
+    }
+
+    /**
+     * Runs a task asynchronously.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskAsync(@NonNull String id, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE_ASYNC, runnable), asyncDispatcher(0, -1));
+    }
+
+    /**
+     * Runs a task on the main thread after {@code delay} ticks.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskLater(@NonNull String id, long delay, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.DELAYED, runnable), syncDispatcher(delay, -1));
+    }
+
+    /**
+     * Runs a task on the main thread after {@code delay} ticks.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskLater(@NonNull String id, long delay, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.DELAYED, runnable), syncDispatcher(delay, -1));
+    }
+
+    /**
+     * Runs a task on the main thread after {@code delay} ticks, then every {@code repeat} ticks.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, long delay, long repeat, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), syncDispatcher(delay, repeat));
+    }
+
+    /**
+     * Runs a task on the main thread after {@code delay} ticks, then every {@code repeat} ticks.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, long delay, long repeat, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), syncDispatcher(delay, repeat));
+    }
+
+    /**
+     * Runs a task on the thread that owns the region containing the location. On servers
+     * that aren't region-threaded this is the same as {@link #runTask(String, Runnable)}.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTask(@NonNull String id, @NonNull Location location, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), regionDispatcher(location, 0, -1));
+    }
+
+    /**
+     * Runs a task on the thread that owns the region containing the location.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTask(@NonNull String id, @NonNull Location location, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), regionDispatcher(location, 0, -1));
+    }
+
+    /**
+     * Runs a repeating task on the thread that owns the region containing the location.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, @NonNull Location location, long delay, long repeat, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), regionDispatcher(location, delay, repeat));
+    }
+
+    /**
+     * Runs a repeating task on the thread that owns the region containing the location.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, @NonNull Location location, long delay, long repeat, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), regionDispatcher(location, delay, repeat));
+    }
+
+    /**
+     * Runs a task on the thread that owns the entity, following it as it moves between regions.
+     * The task is cancelled once the entity is removed.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or -1 if the module is disabled or the entity was already removed
+     */
+    public int runTask(@NonNull String id, @NonNull Entity entity, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), entityDispatcher(entity, 0, -1));
+    }
+
+    /**
+     * Runs a task on the thread that owns the entity, cancelled once the entity is removed.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTask(@NonNull String id, @NonNull Entity entity, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.SINGLE, runnable), entityDispatcher(entity, 0, -1));
+    }
+
+    /**
+     * Runs a repeating task on the thread that owns the entity, cancelled once the entity is removed.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, @NonNull Entity entity, long delay, long repeat, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), entityDispatcher(entity, delay, repeat));
+    }
+
+    /**
+     * Runs a repeating task on the thread that owns the entity, cancelled once the entity is removed.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimer(@NonNull String id, @NonNull Entity entity, long delay, long repeat, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER, runnable), entityDispatcher(entity, delay, repeat));
+    }
+
+    /**
+     * Runs a task asynchronously after {@code delay} ticks.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskLaterAsync(@NonNull String id, long delay, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.DELAYED_ASYNC, runnable), asyncDispatcher(delay, -1));
+    }
+
+    /**
+     * Runs a task asynchronously after {@code delay} ticks.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskLaterAsync(@NonNull String id, long delay, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.DELAYED_ASYNC, runnable), asyncDispatcher(delay, -1));
+    }
+
+    /**
+     * Runs a task asynchronously after {@code delay} ticks, then every {@code repeat} ticks.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimerAsync(@NonNull String id, long delay, long repeat, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER_ASYNC, runnable), asyncDispatcher(delay, repeat));
+    }
+
+    /**
+     * Runs a task asynchronously after {@code delay} ticks, then every {@code repeat} ticks.
+     * <p></p>
+     * The returned id is only a Bukkit task id on the {@link AsyncBackend#BUKKIT} backend of a
+     * regular server, and only if the run wasn't queued by the {@link ModuleAsyncLimiter}.
+     * Otherwise it is a negative local id that {@code Bukkit.getScheduler().cancelTask(id)}
+     * doesn't affect, so use {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskTimerAsync(@NonNull String id, long delay, long repeat, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.TIMER_ASYNC, runnable), asyncDispatcher(delay, repeat));
+    }
+
+    /**
+     * Runs an async task at a fixed wall-clock rate on the module's timer thread, independent
+     * of the server's tick rate. Runs are scheduled against the timer's start time so they don't
+     * drift, and runs that fall behind by a whole period are skipped rather than bunched up.
+     * Skipped runs are counted in the task's {@link ModuleTaskStats#getMissed()}.
+     * <p></p>
+     * All fixed-rate timers of a module share a single thread, so long-running work should be
+     * handed off rather than done in the timer itself. Cancel the timer with {@link #cancelTask(String)}
+     * or {@link #cancelTask(int)}; the returned id is a negative local id that
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect.
+     *
+     * @param id           the task id
+     * @param initialDelay the delay before the first run
+     * @param period       the time between the starts of consecutive runs
+     * @param unit         the unit of the delay and period
+     * @param runnable     the task to run
+     * @return the task id, or -1 if the module is disabled
+     */
+    public int runTaskAtFixedRate(@NonNull String id, long initialDelay, long period, @NonNull TimeUnit unit, @NonNull ModuleRunnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.FIXED_RATE_ASYNC, runnable), fixedRateDispatcher(unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    /**
+     * Runs an async task at a fixed wall-clock rate, see {@link #runTaskAtFixedRate(String, long, long, TimeUnit, ModuleRunnable)}.
+     * <p></p>
+     * The returned id is a negative local id, not a Bukkit task id, so
+     * {@code Bukkit.getScheduler().cancelTask(id)} doesn't affect the task. Use
+     * {@link #cancelTask(int)} or {@link #isQueued(int)} instead.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    public int runTaskAtFixedRate(@NonNull String id, long initialDelay, long period, @NonNull TimeUnit unit, @NonNull Runnable runnable) {
+        return schedule(createTask(id, ModuleTask.ModuleTaskType.FIXED_RATE_ASYNC, runnable), fixedRateDispatcher(unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    /**
+     * Returns a read-only snapshot of every task owned by this module. Use {@link #getRegistry()}
+     * for a live view that doesn't copy.
+     *
+     * @return the module's tasks
+     */
+    public List<ModuleTask> getTasks() {
+        return List.copyOf(registry.getTasks());
+    }
+
+    /**
+     * Returns a read-only snapshot of the tasks registered under the given id.
+     *
+     * @param id the task id, case-insensitive
+     * @return the matching tasks, or an empty set
+     */
+    public Set<ModuleTask> getTasksById(@NonNull String id) {
+        return Set.copyOf(registry.getById(id));
+    }
+
+    public @Nullable ModuleTask getTaskByTaskId(int taskId) {
+        return registry.getByTaskId(taskId);
+    }
+
+    /**
+     * Cancels a task by the id it was scheduled with. Unlike the Bukkit scheduler, this works
+     * for the negative ids of tasks that aren't Bukkit tasks.
+     *
+     * @param taskId the id returned by one of the {@code runTask} methods
+     * @return {@code true} if a task with that id was registered and is now cancelled
+     */
+    public boolean cancelTask(int taskId) {
+        ModuleTask task = registry.getByTaskId(taskId);
+
+        if (task == null) {
+            return false;
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTask(module.getPlugin()).getTaskId());
-        return moduleTask.getTaskId();
+        task.cancel();
+        return true;
     }
 
-    public int runTask(@NonNull String id, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Checks whether a task is still waiting to run or running, by the id it was scheduled with.
+     * Unlike the Bukkit scheduler, this works for the negative ids of tasks that aren't Bukkit tasks.
+     *
+     * @param taskId the id returned by one of the {@code runTask} methods
+     * @return {@code true} if the task is registered and active
+     */
+    public boolean isQueued(int taskId) {
+        ModuleTask task = registry.getByTaskId(taskId);
+        return task != null && task.isActive();
+    }
+
+    public void cancelTask(@NonNull String id) {
+        String key = id.toLowerCase(Locale.ROOT);
+
+        ModuleDebouncer debouncer = debouncers.remove(key);
+        ModuleThrottler throttler = throttlers.remove(key);
+
+        if (debouncer != null) {
+            debouncer.cancel();
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.SINGLE) {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        };
+        if (throttler != null) {
+            throttler.cancel();
+        }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+        registry.removeById(id).forEach(ModuleTask::cancel);
+    }
+
+    /**
+     * Runs the runnable on the main thread once {@code delay} ticks have passed without another
+     * call for the same id. Each call replaces the runnable, so only the newest one runs.
+     * <p></p>
+     * Calls reuse a single scheduled slot per id rather than cancelling and rescheduling a task,
+     * so debouncing a hot path costs no more than updating a deadline. An id keeps the sync or
+     * async flavour of its first call until it is cancelled with {@link #cancelTask(String)}.
+     *
+     * @param id       the task id to debounce on
+     * @param delay    the quiet period in ticks
+     * @param runnable the action to run
+     */
+    public void debounce(@NonNull String id, long delay, @NonNull Runnable runnable) {
+        debouncer(id, false).call(delay, runnable);
+    }
+
+    /**
+     * Asynchronous variant of {@link #debounce(String, long, Runnable)}.
+     */
+    public void debounceAsync(@NonNull String id, long delay, @NonNull Runnable runnable) {
+        debouncer(id, true).call(delay, runnable);
+    }
+
+    /**
+     * Runs the runnable on the main thread at most once every {@code interval} ticks for the
+     * same id. The first call runs on the next tick, calls made while throttled collapse into
+     * a single trailing run of the newest runnable once the interval has passed.
+     * <p></p>
+     * Like {@link #debounce(String, long, Runnable)}, each id owns a single reusable slot and
+     * keeps the flavour of its first call until it is cancelled.
+     *
+     * @param id       the task id to throttle on
+     * @param interval the minimum time between runs in ticks
+     * @param runnable the action to run
+     */
+    public void throttle(@NonNull String id, long interval, @NonNull Runnable runnable) {
+        throttler(id, false).call(interval, runnable);
+    }
+
+    /**
+     * Asynchronous variant of {@link #throttle(String, long, Runnable)}.
+     */
+    public void throttleAsync(@NonNull String id, long interval, @NonNull Runnable runnable) {
+        throttler(id, true).call(interval, runnable);
+    }
+
+    /**
+     * Returns the execution stats of every task id this module has run, including
+     * tasks that have since completed or been cancelled.
+     *
+     * @return a read-only view of the stats, keyed by lowercase task id
+     */
+    public Map<String, ModuleTaskStats> getStats() {
+        return Collections.unmodifiableMap(statsById);
+    }
+
+    public @Nullable ModuleTaskStats getStats(@NonNull String id) {
+        return statsById.get(id.toLowerCase(Locale.ROOT));
+    }
+
+    public void resetStats() {
+        statsById.clear();
+    }
+
+    /**
+     * Sets the slow task threshold for every task with the given id, overriding the
+     * module-wide {@link #getSlowTaskThresholdMillis() threshold}.
+     *
+     * @param id              the task id, case-insensitive
+     * @param thresholdMillis the threshold in milliseconds, or a negative value to use the module-wide threshold
+     */
+    public void setSlowTaskThreshold(@NonNull String id, long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            slowTaskThresholds.remove(id.toLowerCase(Locale.ROOT));
+            return;
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTask(module.getPlugin()).getTaskId());
-        return moduleTask.getTaskId();
+        slowTaskThresholds.put(id.toLowerCase(Locale.ROOT), thresholdMillis);
     }
 
-    public int runTaskAsync(@NonNull String id, @NonNull ModuleRunnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Resolves the slow task threshold that applies to tasks with the given id.
+     *
+     * @param id the task id, case-insensitive
+     * @return the threshold in milliseconds, zero or less if disabled
+     */
+    public long getSlowTaskThreshold(@NonNull String id) {
+        if (slowTaskThresholds.isEmpty()) {
+            return slowTaskThresholdMillis;
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.SINGLE_ASYNC, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
+        return slowTaskThresholds.getOrDefault(id.toLowerCase(Locale.ROOT), slowTaskThresholdMillis);
+    }
+
+    /**
+     * Queues sync work that drains each tick within the module's tick budget.
+     *
+     * @param work the work to run on the main thread
+     * @return {@code false} if the module is disabled and the work was rejected
+     * @see ModuleWorkQueue
+     */
+    public boolean enqueue(@NonNull Runnable work) {
+        return workQueue.submit(work);
+    }
+
+    /**
+     * Queues one unit of sync work per item, draining each tick within the module's tick budget.
+     *
+     * @param items  the items to process
+     * @param action the action to apply to each item on the main thread
+     * @return {@code false} if the module is disabled and the work was rejected
+     * @see ModuleWorkQueue
+     */
+    public <T> boolean enqueueEach(@NonNull Collection<T> items, @NonNull Consumer<? super T> action) {
+        return workQueue.submitEach(items, action);
+    }
+
+    /**
+     * Sets how many milliseconds of queued work may run per tick.
+     *
+     * @param budgetMillis the per-tick budget in milliseconds
+     */
+    public void setTickBudget(long budgetMillis) {
+        workQueue.setBudgetMillis(budgetMillis);
+    }
+
+    /**
+     * Creates a batcher that collapses repeated keys and delivers one batch per window,
+     * keeping the newest value submitted for each key.
+     *
+     * @param id            the task id the flushes are scheduled under
+     * @param intervalTicks the length of a window in ticks
+     * @param async         whether batches are delivered asynchronously instead of on the main thread
+     * @param consumer      receives each batch
+     * @return the new batcher
+     * @see ModuleBatcher
+     */
+    public <K, V> ModuleBatcher<K, V> createBatcher(@NonNull String id, long intervalTicks, boolean async,
+                                                    @NonNull Consumer<Map<K, V>> consumer) {
+        return createBatcher(id, intervalTicks, async, (oldValue, newValue) -> newValue, consumer);
+    }
+
+    /**
+     * Creates a batcher that collapses repeated keys with the given merge function and
+     * delivers one batch per window.
+     *
+     * @param id            the task id the flushes are scheduled under
+     * @param intervalTicks the length of a window in ticks
+     * @param async         whether batches are delivered asynchronously instead of on the main thread
+     * @param merger        combines the waiting value for a key with a newly submitted one
+     * @param consumer      receives each batch
+     * @return the new batcher
+     * @see ModuleBatcher
+     */
+    public <K, V> ModuleBatcher<K, V> createBatcher(@NonNull String id, long intervalTicks, boolean async,
+                                                    @NonNull BinaryOperator<V> merger, @NonNull Consumer<Map<K, V>> consumer) {
+        ModuleBatcher<K, V> batcher = new ModuleBatcher<>(module, this, id, intervalTicks, async, merger, consumer);
+        batchers.add(batcher);
+        return batcher;
+    }
+
+    /**
+     * Runs a supplier asynchronously as a module task and completes the returned future with its result.
+     * The future is cancelled automatically if the module is disabled before it completes.
+     *
+     * @param id       the task id the supplier runs under
+     * @param supplier the supplier to run
+     * @return a future completed with the supplier's result, or exceptionally if it throws
+     *         or the module is disabled, and with a {@link CancellationException} if the task
+     *         is cancelled before it runs; cancelling the future cancels the task
+     */
+    public <T> CompletableFuture<T> supplyAsync(@NonNull String id, @NonNull Supplier<T> supplier) {
+        CompletableFuture<T> future = track(new CompletableFuture<>());
+
+        ModuleTask task = createTask(id, ModuleTask.ModuleTaskType.SINGLE_ASYNC, () -> {
+            if (future.isDone()) {
+                return;
             }
-        };
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        task.onCancel(() -> future.completeExceptionally(new CancellationException("Task '" + id + "' was cancelled.")));
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                task.cancel();
+            }
+        });
+
+        int taskId = schedule(task, asyncDispatcher(0, -1));
+
+        if (taskId == -1) {
+            future.completeExceptionally(new IllegalStateException("Module '" + module.getModuleData().id() + "' is disabled."));
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskAsynchronously(module.getPlugin()).getTaskId());
-        return moduleTask.getTaskId();
+        return future;
     }
 
-    public int runTaskAsync(@NonNull String id, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Computes a result for every item of a collection in parallel, then applies the results on
+     * the main thread through the module's {@link ModuleWorkQueue}, within its per-tick budget.
+     * <p></p>
+     * The collection is copied on the calling thread, so snapshots of live collections such as
+     * online players or loaded chunks should be taken from the main thread. The compute step runs
+     * as an async module task that splits the work across the common {@link ForkJoinPool}, so it
+     * must not touch world state. Results are applied in the order of the snapshot.
+     *
+     * @param id      the task id the compute step runs under
+     * @param items   the items to process
+     * @param compute computes the result for an item, off the main thread
+     * @param apply   applies an item's result on the main thread
+     * @return a future completed once every result has been applied, or exceptionally with the
+     *         first failure of either step
+     */
+    public <T, R> CompletableFuture<Void> forkJoin(@NonNull String id, @NonNull Collection<T> items,
+                                                   @NonNull Function<? super T, ? extends R> compute,
+                                                   @NonNull BiConsumer<? super T, ? super R> apply) {
+        List<T> snapshot = new ArrayList<>(items);
+        CompletableFuture<Void> future = track(new CompletableFuture<>());
+
+        if (snapshot.isEmpty()) {
+            future.complete(null);
+            return future;
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.SINGLE_ASYNC) {
-            @Override
-            public void run() {
-                runnable.run();
+        CompletableFuture<List<R>> results = supplyAsync(id, () -> IntStream.range(0, snapshot.size())
+                .parallel()
+                .<R>mapToObj(index -> compute.apply(snapshot.get(index)))
+                .toList());
+
+        results.whenComplete((computed, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+                return;
             }
-        };
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
-        }
+            AtomicInteger remaining = new AtomicInteger(computed.size());
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Runnable> units = new ArrayList<>(computed.size());
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskAsynchronously(module.getPlugin()).getTaskId());
-        return moduleTask.getTaskId();
+            for (int i = 0; i < computed.size(); i++) {
+                T item = snapshot.get(i);
+                R result = computed.get(i);
+
+                units.add(() -> {
+                    try {
+                        if (!future.isDone()) {
+                            apply.accept(item, result);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            Throwable first = failure.get();
+
+                            if (first == null) {
+                                future.complete(null);
+                            } else {
+                                future.completeExceptionally(first);
+                            }
+                        }
+                    }
+                });
+            }
+
+            if (!workQueue.submitEach(units, Runnable::run)) {
+                future.completeExceptionally(new IllegalStateException("Module '" + module.getModuleData().id() + "' is disabled."));
+            }
+        });
+
+        return future;
     }
 
-    public int runTaskLater(@NonNull String id, long delay, @NonNull ModuleRunnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Runs a runnable asynchronously as a module task.
+     *
+     * @param id       the task id the runnable runs under
+     * @param runnable the runnable to run
+     * @return a future completed once the runnable finishes
+     * @see #supplyAsync(String, Supplier)
+     */
+    public CompletableFuture<Void> runAsync(@NonNull String id, @NonNull Runnable runnable) {
+        return supplyAsync(id, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a supplier on the main thread with the next batch of continuations.
+     *
+     * @param supplier the supplier to run
+     * @return a future completed with the supplier's result
+     */
+    public <T> CompletableFuture<T> supplyOnMain(@NonNull Supplier<T> supplier) {
+        return track(CompletableFuture.supplyAsync(supplier, mainThreadExecutor));
+    }
+
+    /**
+     * Delivers the result of a future to the main thread. Continuations are batched and
+     * run once per tick, and are cancelled if the module is disabled first.
+     *
+     * @param future   the future to continue from
+     * @param consumer receives the result on the main thread
+     * @return a future completed once the consumer has run
+     */
+    public <T> CompletableFuture<Void> thenOnMain(@NonNull CompletableFuture<T> future, @NonNull Consumer<? super T> consumer) {
+        return track(future.thenAcceptAsync(consumer, mainThreadExecutor));
+    }
+
+    /**
+     * Transforms the result of a future on the main thread.
+     *
+     * @param future   the future to continue from
+     * @param function transforms the result on the main thread
+     * @return a future completed with the transformed result
+     * @see #thenOnMain(CompletableFuture, Consumer)
+     */
+    public <T, R> CompletableFuture<R> thenApplyOnMain(@NonNull CompletableFuture<T> future, @NonNull Function<? super T, ? extends R> function) {
+        return track(future.thenApplyAsync(function, mainThreadExecutor));
+    }
+
+    /**
+     * Registers a future to be cancelled when the module is disabled. It is released
+     * again as soon as it completes.
+     *
+     * @param future the future to track
+     * @return the same future
+     */
+    public <T> CompletableFuture<T> track(@NonNull CompletableFuture<T> future) {
+        futures.add(future);
+        future.whenComplete((result, throwable) -> futures.remove(future));
+        return future;
+    }
+
+    /**
+     * Winds the module's tasks down ahead of {@link #shutdown()}, once the module has been marked
+     * as disabled and no longer accepts new tasks. Same as {@link #beginDrain()} followed by
+     * {@link #awaitDrain(long)} with a deadline {@link #getDrainTimeoutMillis()} from now.
+     *
+     * @return the tasks whose runs were still in flight when the timeout expired
+     */
+    public List<ModuleTask> drain() {
+        beginDrain();
+        return awaitDrain(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, drainTimeoutMillis)));
+    }
+
+    /**
+     * Cancels every task that isn't running, without touching running children. Call this for
+     * every module being disabled before waiting on any of them, so their in-flight runs wind
+     * down concurrently.
+     */
+    public void beginDrain() {
+        Set<Long> running = new HashSet<>();
+        activeRuns.forEach(run -> running.add(run.task().getSequence()));
+
+        for (ModuleTask task : registry.snapshot()) {
+            if (!running.contains(task.getSequence())) {
+                task.cancel(false);
+            }
         }
+    }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.DELAYED, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
+    /**
+     * Waits for in-flight async runs to finish, until the given deadline. Runs still going after
+     * that are cancelled and reported. Runs on the module's own virtual threads and timer thread
+     * are interrupted, those on the Bukkit async pool can't be and are left to finish against the
+     * disabled module.
+     * <p></p>
+     * Several modules disabled together should share one deadline, so the total wait is bounded
+     * by a single timeout rather than one per module.
+     *
+     * @param deadline the {@link System#nanoTime()} to stop waiting at
+     * @return the tasks whose runs were still in flight at the deadline
+     */
+    public List<ModuleTask> awaitDrain(long deadline) {
+        synchronized (drainLock) {
+            draining = true;
+
+            try {
+                long remaining;
+
+                while (!activeRuns.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(drainLock, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                draining = false;
             }
-        };
+        }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+        if (activeRuns.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskLater(module.getPlugin(), delay).getTaskId());
-        return moduleTask.getTaskId();
+        List<ModuleTask> interrupted = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        long now = System.nanoTime();
+
+        for (ActiveRun run : activeRuns) {
+            interrupted.add(run.task());
+            report.append("\n\t").append(run.task().getId())
+                    .append(" on '").append(run.thread().getName()).append("'")
+                    .append(" for ").append(TimeUnit.NANOSECONDS.toMillis(now - run.startNanos())).append("ms");
+        }
+
+        interrupted.forEach(ModuleTask::cancel);
+
+        module.log(Level.WARNING, "Cancelled " + interrupted.size() + " async task run(s) still in flight at the drain deadline:" + report);
+        return interrupted;
     }
 
-    public int runTaskLater(@NonNull String id, long delay, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Hands every batcher's waiting entries to its consumer on the calling thread. Call this on
+     * the main thread when sync batch consumers must not run anywhere else.
+     */
+    public void flushBatchers() {
+        batchers.forEach(ModuleBatcher::flush);
+    }
+
+    /**
+     * Cancels every task owned by this module, stops its timing wheel, discards queued
+     * work and releases the virtual thread executor, if one was created. The scheduler
+     * stays usable and creates a fresh executor when the module is enabled again.
+     * <p></p>
+     * Batchers are flushed on the calling thread first, so coalesced writes aren't lost.
+     * Futures created through this scheduler that haven't completed are cancelled.
+     */
+    public void shutdown() {
+        batchers.forEach(ModuleBatcher::flush);
+
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(false);
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.DELAYED) {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        };
+        mainThreadExecutor.shutdown();
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+        debouncers.values().forEach(ModuleDebouncer::cancel);
+        debouncers.clear();
+        throttlers.values().forEach(ModuleThrottler::cancel);
+        throttlers.clear();
+
+        for (ModuleTask task : registry.snapshot()) {
+            registry.remove(task);
+            task.cancel();
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskLater(module.getPlugin(), delay).getTaskId());
-        return moduleTask.getTaskId();
+        ExecutorService executor;
+
+        synchronized (this) {
+            executor = virtualExecutor;
+            virtualExecutor = null;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        ScheduledExecutorService timers;
+
+        synchronized (this) {
+            timers = timerExecutor;
+            timerExecutor = null;
+        }
+
+        if (timers != null) {
+            timers.shutdownNow();
+        }
+
+        timingWheel.shutdown();
+        asyncLimiter.clear();
+
+        int discarded = workQueue.shutdown();
+
+        if (discarded > 0) {
+            module.log(Level.WARNING, "Discarded " + discarded + " queued work units on shutdown.");
+        }
     }
 
-    public int runTaskTimer(@NonNull String id, long delay, long repeat, @NonNull ModuleRunnable runnable) {
+    /**
+     * Creates the one-shot task a {@link ModuleDebouncer}, {@link ModuleThrottler} or
+     * {@link ModuleBatcher} reuses for every run of its slot.
+     */
+    ModuleTask createSlotTask(@NonNull String id, boolean async, @NonNull Runnable runnable) {
+        return createTask(id, async ? ModuleTask.ModuleTaskType.DELAYED_ASYNC : ModuleTask.ModuleTaskType.DELAYED, runnable);
+    }
+
+    /**
+     * Schedules a slot task for its next run. Slot tasks never become children of the task
+     * arming them, so cancelling that task doesn't take the slot down with it.
+     *
+     * @return the task id, or {@code -1} if the module is disabled
+     */
+    int scheduleSlot(@NonNull ModuleTask moduleTask, long delay) {
+        registry.remove(moduleTask);
+        return schedule(moduleTask, moduleTask.getType().isAsync() ? slotAsyncDispatcher(delay) : syncDispatcher(delay, -1), false);
+    }
+
+    private int schedule(@NonNull ModuleTask moduleTask, @NonNull ToIntFunction<ModuleTask> dispatcher) {
+        return schedule(moduleTask, dispatcher, true);
+    }
+
+    private int schedule(@NonNull ModuleTask moduleTask, @NonNull ToIntFunction<ModuleTask> dispatcher, boolean attachToParent) {
         if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
+            module.log(Level.WARNING, "Cannot run task '" + moduleTask.getId() + "' because module is disabled.");
             return -1;
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.TIMER, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        };
-
         moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+        moduleTask.setStats(statsFor(moduleTask.getId()));
+
+        ModuleTask parent = attachToParent ? ModuleTask.current() : null;
+
+        if (parent != null && parent.getModuleInstance() == module) {
+            moduleTask.attachTo(parent);
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskTimer(module.getPlugin(), delay, repeat).getTaskId());
-        return moduleTask.getTaskId();
-    }
+        moduleTask.markScheduled();
+        registry.add(moduleTask);
 
-    public int runTaskTimer(@NonNull String id, long delay, long repeat, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
+        int taskId;
+
+        try {
+            taskId = dispatcher.applyAsInt(moduleTask);
+        } catch (RuntimeException e) {
+            registry.remove(moduleTask);
+            throw e;
+        }
+
+        if (taskId == -1) {
+            registry.remove(moduleTask);
             return -1;
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.TIMER) {
-            @Override
-            public void run() {
-                runnable.run();
+        registry.bindTaskId(moduleTask, taskId);
+
+        return moduleTask.getTaskId();
+    }
+
+    private static int nextLocalTaskId() {
+        return LOCAL_TASK_IDS.getAndUpdate(id -> id == Integer.MIN_VALUE ? -2 : id - 1);
+    }
+
+    /**
+     * Sync tasks are multiplexed onto the module's timing wheel, so a module holds a single
+     * Bukkit task however many delayed or repeating tasks it has scheduled. Region-threaded
+     * servers have no main thread to drive the wheel from, so there they go to the global region.
+     */
+    private ToIntFunction<ModuleTask> syncDispatcher(long delay, long period) {
+        return moduleTask -> {
+            ModuleSchedulerPlatform platform = this.platform;
+
+            if (platform.isRegionThreaded()) {
+                moduleTask.setHandle(platform.runGlobal(module.getPlugin(), moduleTask::execute, delay, period));
+                return nextLocalTaskId();
             }
+
+            timingWheel.schedule(moduleTask, delay, period);
+            return nextLocalTaskId();
         };
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
-        }
+    private ToIntFunction<ModuleTask> regionDispatcher(@NonNull Location location, long delay, long period) {
+        return moduleTask -> {
+            ModuleSchedulerPlatform platform = this.platform;
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskTimer(module.getPlugin(), delay, repeat).getTaskId());
-        return moduleTask.getTaskId();
+            if (!platform.isRegionThreaded()) {
+                return syncDispatcher(delay, period).applyAsInt(moduleTask);
+            }
+
+            moduleTask.setHandle(platform.runAt(module.getPlugin(), location, moduleTask::execute, delay, period));
+            return nextLocalTaskId();
+        };
     }
 
-    public int runTaskLaterAsync(@NonNull String id, long delay, @NonNull ModuleRunnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
-        }
+    /**
+     * Entity tasks always go through the platform, which stops them once the entity is removed.
+     */
+    private ToIntFunction<ModuleTask> entityDispatcher(@NonNull Entity entity, long delay, long period) {
+        return moduleTask -> {
+            ModuleTaskHandle handle = platform.runFor(module.getPlugin(), entity, moduleTask::execute, moduleTask::unregister, delay, period);
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.DELAYED_ASYNC, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
+            if (handle == null) {
+                return -1;
             }
+
+            moduleTask.setHandle(handle);
+            return nextLocalTaskId();
         };
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
-        }
+    private ToIntFunction<ModuleTask> asyncDispatcher(long delay, long period) {
+        return moduleTask -> {
+            if (delay <= 0 && period < 0 && !asyncLimiter.hasCapacity()) {
+                moduleTask.setHandle(new ModuleTaskHandle() {
+                    @Override
+                    public void cancel() {
+                    }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskLaterAsynchronously(module.getPlugin(), delay).getTaskId());
-        return moduleTask.getTaskId();
+                    @Override
+                    public boolean isActive() {
+                        return registry.contains(moduleTask);
+                    }
+                });
+
+                asyncLimiter.defer(moduleTask);
+                return nextLocalTaskId();
+            }
+
+            if (asyncBackend == AsyncBackend.VIRTUAL_THREADS) {
+                return dispatchVirtual(moduleTask, delay, period);
+            }
+
+            ModuleSchedulerPlatform platform = this.platform;
+
+            if (platform.isRegionThreaded()) {
+                moduleTask.setHandle(platform.runAsync(module.getPlugin(), moduleTask::execute, delay, period));
+                return nextLocalTaskId();
+            }
+
+            BukkitRunnable bukkitRunnable = moduleTask.getBukkitRunnable();
+
+            if (period >= 0) {
+                return bukkitRunnable.runTaskTimerAsynchronously(module.getPlugin(), delay, period).getTaskId();
+            }
+
+            if (delay > 0) {
+                return bukkitRunnable.runTaskLaterAsynchronously(module.getPlugin(), delay).getTaskId();
+            }
+
+            return bukkitRunnable.runTaskAsynchronously(module.getPlugin()).getTaskId();
+        };
     }
 
-    public int runTaskLaterAsync(@NonNull String id, long delay, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    /**
+     * Slot tasks are scheduled again after every run, which a {@link BukkitRunnable} doesn't
+     * allow, so on the Bukkit backend they go through the platform instead.
+     */
+    private ToIntFunction<ModuleTask> slotAsyncDispatcher(long delay) {
+        return moduleTask -> {
+            if (asyncBackend == AsyncBackend.VIRTUAL_THREADS) {
+                return dispatchVirtual(moduleTask, delay, -1);
+            }
+
+            moduleTask.setHandle(platform.runAsync(module.getPlugin(), moduleTask::execute, delay, -1));
+            return nextLocalTaskId();
+        };
+    }
+
+    /**
+     * Starts a run that the {@link ModuleAsyncLimiter} took out of its pending queue. The run
+     * already holds a limiter slot, which is released once it finishes or if it's skipped
+     * because the task was cancelled while it waited.
+     */
+    private void dispatchAdmitted(@NonNull ModuleTask moduleTask) {
+        Runnable admittedRun = () -> {
+            try {
+                if (registry.contains(moduleTask)) {
+                    moduleTask.execute(false);
+                }
+            } finally {
+                asyncLimiter.release();
+            }
+        };
+
+        try {
+            if (asyncBackend == AsyncBackend.VIRTUAL_THREADS) {
+                virtualExecutor().execute(admittedRun);
+                return;
+            }
+
+            platform.runAsync(module.getPlugin(), admittedRun, 0, -1);
+        } catch (RuntimeException e) {
+            asyncLimiter.release();
+            moduleTask.cancel();
+            module.log(Level.SEVERE, "Unable to start deferred task '" + moduleTask.getId() + "': " + e.getMessage());
         }
+    }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.DELAYED_ASYNC) {
-            @Override
-            public void run() {
-                runnable.run();
+    /**
+     * Runs a task on its own virtual thread, which sleeps through the delay and the
+     * period between runs. Mirrors Bukkit's timer semantics: a negative period runs
+     * once and a period of zero repeats every tick.
+     */
+    private int dispatchVirtual(@NonNull ModuleTask moduleTask, long delay, long period) {
+        long repeatMillis = Math.max(1, period) * MILLIS_PER_TICK;
+
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            try {
+                if (delay > 0) {
+                    Thread.sleep(delay * MILLIS_PER_TICK);
+                }
+
+                do {
+                    moduleTask.execute();
+
+                    if (period < 0) {
+                        break;
+                    }
+
+                    Thread.sleep(repeatMillis);
+                } while (!Thread.currentThread().isInterrupted());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }, null);
+
+        moduleTask.setHandle(ModuleTaskHandle.of(future));
+        virtualExecutor().execute(future);
+        return nextLocalTaskId();
+    }
+
+    private ToIntFunction<ModuleTask> fixedRateDispatcher(long initialDelayNanos, long periodNanos) {
+        return moduleTask -> {
+            ModuleFixedRateTimer timer = new ModuleFixedRateTimer(moduleTask, timerExecutor(), initialDelayNanos, periodNanos);
+            moduleTask.setHandle(timer);
+            timer.start();
+            return nextLocalTaskId();
         };
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+    private synchronized ScheduledExecutorService timerExecutor() {
+        if (timerExecutor == null) {
+            String threadName = "bits-module-" + module.getModuleData().id().toLowerCase(Locale.ROOT).replace(" ", "_") + "-timer";
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            executor.setRemoveOnCancelPolicy(true);
+            timerExecutor = executor;
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskLaterAsynchronously(module.getPlugin(), delay).getTaskId());
-        return moduleTask.getTaskId();
+        return timerExecutor;
     }
 
-    public int runTaskTimerAsync(@NonNull String id, long delay, long repeat, @NonNull ModuleRunnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    private synchronized ExecutorService virtualExecutor() {
+        if (virtualExecutor == null) {
+            String threadName = "bits-module-" + module.getModuleData().id().toLowerCase(Locale.ROOT).replace(" ", "_") + "-";
+            virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadName, 0).factory());
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.TIMER_ASYNC, runnable) {
-            @Override
-            public void run() {
-                runnable.run();
-            }
+        return virtualExecutor;
+    }
 
-            @Override
-            public void cancel() {
-                super.cancel();
-            }
-        };
+    ActiveRun enterRun(@NonNull ModuleTask moduleTask) {
+        ActiveRun run = new ActiveRun(moduleTask, Thread.currentThread(), System.nanoTime());
+        activeRuns.add(run);
+        return run;
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+    void exitRun(@NonNull ActiveRun run) {
+        activeRuns.remove(run);
+
+        if (!draining) {
+            return;
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskTimerAsynchronously(module.getPlugin(), delay, repeat).getTaskId());
-        return moduleTask.getTaskId();
+        synchronized (drainLock) {
+            drainLock.notifyAll();
+        }
     }
 
-    public int runTaskTimerAsync(@NonNull String id, long delay, long repeat, @NonNull Runnable runnable) {
-        if (!module.isEnabled()) {
-            module.log(Level.WARNING, "Cannot run task '" + id + "' because module is disabled.");
-            return -1;
+    private ModuleDebouncer debouncer(String id, boolean async) {
+        return debouncers.computeIfAbsent(id.toLowerCase(Locale.ROOT), key -> new ModuleDebouncer(this, id, async));
+    }
+
+    private ModuleThrottler throttler(String id, boolean async) {
+        return throttlers.computeIfAbsent(id.toLowerCase(Locale.ROOT), key -> new ModuleThrottler(this, id, async));
+    }
+
+    private ModuleTaskStats statsFor(@NonNull String id) {
+        String key = id.toLowerCase(Locale.ROOT);
+        ModuleTaskStats stats = statsById.get(key);
+
+        if (stats != null) {
+            return stats;
+        }
+
+        if (statsById.size() >= MAX_TRACKED_STATS) {
+            return new ModuleTaskStats(id);
         }
 
-        ModuleTask moduleTask = new ModuleTask(id, ModuleTask.ModuleTaskType.TIMER_ASYNC) {
+        return statsById.computeIfAbsent(key, k -> new ModuleTaskStats(id));
+    }
+
+    private ModuleTask createTask(@NonNull String id, @NonNull ModuleTask.ModuleTaskType type, @NonNull ModuleRunnable runnable) {
+        return new ModuleTask(id, type, runnable) {
             @Override
             public void run() {
                 runnable.run();
             }
         };
+    }
 
-        moduleTask.setModuleInstance(module);
-        synchronized (tasks) {
-            tasks.add(moduleTask);
+    private ModuleTask createTask(@NonNull String id, @NonNull ModuleTask.ModuleTaskType type, @NonNull Runnable runnable) {
+        return new ModuleTask(id, type) {
+            @Override
+            public void run() {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * A single in-flight run of an async task, tracked so {@link #drain()} can wait for it.
+     * Compared by identity, as the same task may be running on several threads at once.
+     */
+    static final class ActiveRun {
+
+        private final ModuleTask task;
+        private final Thread thread;
+        private final long startNanos;
+
+        private ActiveRun(ModuleTask task, Thread thread, long startNanos) {
+            this.task = task;
+            this.thread = thread;
+            this.startNanos = startNanos;
         }
 
-        moduleTask.setTaskId(moduleTask.getBukkitRunnable().runTaskTimerAsynchronously(module.getPlugin(), delay, repeat).getTaskId());
-        return moduleTask.getTaskId();
-    }
+        ModuleTask task() {
+            return task;
+        }
 
-    public Set<ModuleTask> getTasksById(@NonNull String id) {
-        synchronized (tasks) {
-            return tasks.stream().filter(moduleTask -> moduleTask.getId().equalsIgnoreCase(id)).collect(Collectors.toUnmodifiableSet());
+        Thread thread() {
+            return thread;
         }
+
+        long startNanos() {
+            return startNanos;
+        }
+
     }
 
-    public void cancelTask(@NonNull String id) {
-        synchronized (tasks) {
-            tasks.removeIf(task -> {
-                if (!task.getId().equalsIgnoreCase(id)) {
-                    return false;
-                }
+    public enum AsyncBackend {
 
-                if (task.getBukkitRunnable() != null) {
-                    task.getBukkitRunnable().cancel();
-                }
+        /**
+         * Async tasks run on the Bukkit async scheduler's shared pool.
+         */
+        BUKKIT,
+
+        /**
+         * Async tasks run on virtual threads from an executor owned by this scheduler,
+         * so blocking I/O doesn't tie up the shared Bukkit pool.
+         */
+        VIRTUAL_THREADS;
 
-                Bukkit.getScheduler().cancelTask(task.getTaskId());
-                return true;
-            });
-        }
     }
 
 }
@@ -0,0 +1,69 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The server scheduler module tasks are ultimately run on.
+ * <p></p>
+ * On a regular server everything that isn't async runs on the single main thread and the
+ * {@link BukkitSchedulerPlatform} is used. On a region-threaded (Folia) server there is no main
+ * thread, so the {@link FoliaSchedulerPlatform} routes work onto the global region, the region
+ * owning a location or the scheduler of an entity instead. The platform is picked once at
+ * runtime by {@link #detect()}, and can be replaced per module through
+ * {@link ModuleScheduler#setPlatform(ModuleSchedulerPlatform)}, for example with a stub in tests.
+ * <p></p>
+ * Delays and periods are in ticks. A negative period runs the task once.
+ */
+public interface ModuleSchedulerPlatform {
+
+    /**
+     * @return {@code true} if the server runs regions on separate threads and has no main thread
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Runs a task on the main thread, or on the global region of a region-threaded server.
+     */
+    ModuleTaskHandle runGlobal(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period);
+
+    /**
+     * Runs a task on the thread that owns the region containing the location.
+     */
+    ModuleTaskHandle runAt(@NonNull Plugin plugin, @NonNull Location location, @NonNull Runnable runnable, long delay, long period);
+
+    /**
+     * Runs a task on the thread that owns the entity, following it across regions. The task
+     * stops once the entity is removed, at which point {@code retired} is called instead.
+     *
+     * @return the handle, or {@code null} if the entity was already removed
+     */
+    @Nullable ModuleTaskHandle runFor(@NonNull Plugin plugin, @NonNull Entity entity, @NonNull Runnable runnable,
+                                      @Nullable Runnable retired, long delay, long period);
+
+    /**
+     * Runs a task off the server threads.
+     */
+    ModuleTaskHandle runAsync(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period);
+
+    /**
+     * @return the number of ticks the server has run, which is what delays are measured against
+     */
+    default long getCurrentTick() {
+        return Bukkit.getCurrentTick();
+    }
+
+    /**
+     * Picks the platform for the running server.
+     *
+     * @return the Folia platform on region-threaded servers, the Bukkit platform otherwise
+     */
+    static ModuleSchedulerPlatform detect() {
+        return FoliaSchedulerPlatform.isSupported() ? FoliaSchedulerPlatform.INSTANCE : BukkitSchedulerPlatform.INSTANCE;
+    }
+
+}
@@ -5,15 +5,28 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import net.bitbylogic.module.BitsModule;
+import net.bitbylogic.module.jfr.ModuleTaskEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter
 public abstract class ModuleTask extends ModuleRunnable {
 
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final ThreadLocal<ModuleTask> CURRENT = new ThreadLocal<>();
+
+    private final long sequence = SEQUENCE.incrementAndGet();
+
     private final String id;
     private final ModuleTaskType type;
 
@@ -28,6 +41,44 @@ public abstract class ModuleTask extends ModuleRunnable {
     @Setter
     private int taskId = -1;
 
+    @Setter(AccessLevel.PROTECTED)
+    private @NonNull ModuleTaskStats stats;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PROTECTED)
+    private volatile @Nullable ModuleTaskHandle handle;
+
+    /**
+     * How long a single run of this task may take before the watchdog reports it, in milliseconds.
+     * A negative value falls back to the thresholds configured on the module's {@link ModuleScheduler}.
+     * Only applies to sync tasks.
+     */
+    @Setter
+    private volatile long slowThresholdMillis = -1;
+
+    /**
+     * The task that was running when this task was scheduled, if it belonged to the same module.
+     * Cancelling the parent cancels this task as well.
+     */
+    private volatile @Nullable ModuleTask parent;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, ModuleTask> children = new ConcurrentHashMap<>();
+
+    /**
+     * Called every time this task is cancelled, used to fail the future of a task created
+     * through {@link ModuleScheduler#supplyAsync(String, java.util.function.Supplier)}.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile @Nullable Runnable cancelListener;
+
+    /**
+     * Bumped every time the task is scheduled, so a one-shot run that schedules its own task
+     * again, as debounce and throttle slots do, doesn't unregister the new run when it ends.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile int generation;
+
     public ModuleTask(@NonNull String id, @NonNull ModuleTaskType type) {
         this(id, type, null);
     }
@@ -36,6 +87,7 @@ public abstract class ModuleTask extends ModuleRunnable {
         this.id = id;
         this.type = type;
         this.runnable = runnable;
+        this.stats = new ModuleTaskStats(id);
 
         if (runnable != null) {
             runnable.setTask(this);
@@ -48,23 +100,7 @@ public abstract class ModuleTask extends ModuleRunnable {
         return new BukkitRunnable() {
             @Override
             public void run() {
-                try {
-                    if (moduleInstance == null) {
-                        cancel();
-                        return;
-                    }
-
-                    if (runnable != null) {
-                        runnable.run();
-                        return;
-                    }
-
-                    ModuleTask.this.run();
-                } catch (Exception e) {
-                    moduleInstance.getPlugin().getLogger().severe("Exception in ModuleTask '" + id + "': " + e.getMessage());
-                    e.printStackTrace();
-                    cancel();
-                }
+                execute();
             }
 
             @Override
@@ -74,13 +110,145 @@ public abstract class ModuleTask extends ModuleRunnable {
         };
     }
 
+    /**
+     * Runs the task body once, recording its wall time in the task's {@link ModuleTaskStats}.
+     * A task that throws is logged and cancelled. Async runs first claim a slot from the
+     * module's {@link ModuleAsyncLimiter} and are deferred if none is free.
+     */
+    protected void execute() {
+        execute(true);
+    }
+
+    /**
+     * @param gated whether an async run must claim a limiter slot first; {@code false} for runs
+     *              that already hold one or that deliberately bypass the limit
+     */
+    void execute(boolean gated) {
+        if (moduleInstance == null || !moduleInstance.isEnabled()) {
+            cancel();
+            return;
+        }
+
+        ModuleAsyncLimiter limiter = null;
+
+        if (gated && type.isAsync() && moduleInstance.getScheduler().getAsyncLimiter().isEnabled()) {
+            limiter = moduleInstance.getScheduler().getAsyncLimiter();
+
+            if (!limiter.tryAcquire()) {
+                if (type.isRepeating()) {
+                    limiter.skip();
+                } else {
+                    limiter.defer(this);
+                }
+
+                return;
+            }
+        }
+
+        int runGeneration = generation;
+        long startTime = System.nanoTime();
+        ModuleTaskWatchdog.Watch watch = type.isAsync() ? null : startWatch(startTime);
+        ModuleScheduler.ActiveRun activeRun = type.isAsync() ? moduleInstance.getScheduler().enterRun(this) : null;
+        ModuleTask previous = CURRENT.get();
+        ModuleTaskEvent event = new ModuleTaskEvent();
+
+        CURRENT.set(this);
+        event.begin();
+
+        try {
+            if (runnable != null) {
+                runnable.run();
+                return;
+            }
+
+            run();
+        } catch (Exception e) {
+            moduleInstance.getPlugin().getLogger().severe("Exception in ModuleTask '" + id + "': " + e.getMessage());
+            e.printStackTrace();
+            cancel();
+        } finally {
+            event.end();
+            CURRENT.set(previous);
+
+            if (event.shouldCommit()) {
+                event.moduleId = moduleInstance.getModuleData().id();
+                event.taskId = id;
+                event.taskType = type.name();
+                event.commit();
+            }
+
+            if (activeRun != null) {
+                moduleInstance.getScheduler().exitRun(activeRun);
+            }
+
+            long elapsed = System.nanoTime() - startTime;
+            stats.record(elapsed);
+
+            if (watch != null) {
+                moduleInstance.getModuleManager().getTaskWatchdog().unwatch(watch, elapsed);
+            }
+
+            if (!type.isRepeating() && generation == runGeneration) {
+                unregister();
+            }
+
+            if (limiter != null) {
+                limiter.release();
+            }
+        }
+    }
+
+    private @Nullable ModuleTaskWatchdog.Watch startWatch(long startTime) {
+        long threshold = slowThresholdMillis >= 0 ? slowThresholdMillis : moduleInstance.getScheduler().getSlowTaskThreshold(id);
+
+        if (threshold <= 0) {
+            return null;
+        }
+
+        return moduleInstance.getModuleManager().getTaskWatchdog().watch(this, startTime, TimeUnit.MILLISECONDS.toNanos(threshold));
+    }
+
+    /**
+     * Cancels this task and, recursively, every child task scheduled from it.
+     */
     @Override
     public void cancel() {
-        Bukkit.getScheduler().cancelTask(taskId);
-        markForCleanup();
+        cancel(true);
+    }
+
+    void cancel(boolean withChildren) {
+        ModuleTaskHandle currentHandle = handle;
+
+        if (currentHandle != null) {
+            currentHandle.cancel();
+        } else {
+            Bukkit.getScheduler().cancelTask(taskId);
+        }
+
+        unregister();
+
+        Runnable listener = cancelListener;
+
+        if (listener != null) {
+            listener.run();
+        }
+
+        if (!withChildren) {
+            return;
+        }
+
+        for (ModuleTask child : children.values()) {
+            child.cancel();
+        }
     }
 
     public boolean isActive() {
+        ModuleTaskHandle currentHandle = handle;
+
+        if (currentHandle != null) {
+            return currentHandle.isActive();
+        }
+
         if (taskId == -1) {
             return true;
         }
@@ -88,12 +256,58 @@ public abstract class ModuleTask extends ModuleRunnable {
         return Bukkit.getScheduler().isCurrentlyRunning(taskId) || Bukkit.getScheduler().isQueued(taskId);
     }
 
-    private void markForCleanup() {
-        if(moduleInstance == null) {
+    /**
+     * Removes this task from its module's registry. Called when the task is cancelled
+     * and when a one-shot task finishes running.
+     */
+    void unregister() {
+        ModuleTask currentParent = parent;
+
+        if (currentParent != null) {
+            currentParent.children.remove(sequence);
+        }
+
+        if (moduleInstance == null) {
             return;
         }
 
-        moduleInstance.getModuleManager().scheduleCleanup(this);
+        moduleInstance.getScheduler().getRegistry().remove(this);
+    }
+
+    /**
+     * Returns the child tasks scheduled from this task that are still registered.
+     *
+     * @return a read-only view of the children
+     */
+    public Collection<ModuleTask> getChildren() {
+        return Collections.unmodifiableCollection(children.values());
+    }
+
+    /**
+     * Sets the callback run whenever this task is cancelled, whether directly, through
+     * {@link ModuleScheduler#cancelTask(String)}, a drain or the {@link ModuleAsyncLimiter}.
+     */
+    void onCancel(@NonNull Runnable listener) {
+        this.cancelListener = listener;
+    }
+
+    void markScheduled() {
+        generation++;
+    }
+
+    /**
+     * Makes this task a child of the given task, so it is cancelled along with it.
+     */
+    void attachTo(@NonNull ModuleTask parent) {
+        this.parent = parent;
+        parent.children.put(sequence, this);
+    }
+
+    /**
+     * @return the task running on the current thread, or {@code null} outside of a module task
+     */
+    public static @Nullable ModuleTask current() {
+        return CURRENT.get();
     }
 
     @Override
@@ -115,7 +329,16 @@ public abstract class ModuleTask extends ModuleRunnable {
         TIMER,
         SINGLE_ASYNC,
         DELAYED_ASYNC,
-        TIMER_ASYNC;
+        TIMER_ASYNC,
+        FIXED_RATE_ASYNC;
+
+        public boolean isAsync() {
+            return this == SINGLE_ASYNC || this == DELAYED_ASYNC || this == TIMER_ASYNC || this == FIXED_RATE_ASYNC;
+        }
+
+        public boolean isRepeating() {
+            return this == TIMER || this == TIMER_ASYNC || this == FIXED_RATE_ASYNC;
+        }
 
     }
 
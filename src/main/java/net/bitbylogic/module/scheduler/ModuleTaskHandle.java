@@ -0,0 +1,37 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+
+import java.util.concurrent.Future;
+
+/**
+ * A scheduled execution of a {@link ModuleTask} on a backend other than the Bukkit scheduler.
+ * Tasks without a handle are tracked by their Bukkit task id instead.
+ */
+public interface ModuleTaskHandle {
+
+    /**
+     * Stops any future executions of the task, interrupting a running one where supported.
+     */
+    void cancel();
+
+    /**
+     * @return {@code true} while the task is waiting to run or running
+     */
+    boolean isActive();
+
+    static ModuleTaskHandle of(@NonNull Future<?> future) {
+        return new ModuleTaskHandle() {
+            @Override
+            public void cancel() {
+                future.cancel(true);
+            }
+
+            @Override
+            public boolean isActive() {
+                return !future.isDone();
+            }
+        };
+    }
+
+}
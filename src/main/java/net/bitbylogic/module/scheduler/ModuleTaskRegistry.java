@@ -0,0 +1,166 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent index of the {@link ModuleTask}s owned by a single module.
+ * <p></p>
+ * Tasks are indexed by their (case-insensitive) id and by the Bukkit task id they
+ * were scheduled with, so lookups, cancellation and removal run in constant time
+ * without a global lock. Iteration through {@link #getTasks()} is weakly consistent
+ * and never throws a {@link ConcurrentModificationException}.
+ */
+public class ModuleTaskRegistry {
+
+    private final Map<Long, ModuleTask> tasks = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, ModuleTask>> tasksById = new ConcurrentHashMap<>();
+    private final Map<Integer, ModuleTask> tasksByTaskId = new ConcurrentHashMap<>();
+
+    private final Collection<ModuleTask> view = Collections.unmodifiableCollection(tasks.values());
+
+    /**
+     * Adds a task to the registry.
+     *
+     * @param task the task to add
+     */
+    public void add(@NonNull ModuleTask task) {
+        tasks.put(task.getSequence(), task);
+
+        tasksById.compute(normalize(task.getId()), (key, byId) -> {
+            Map<Long, ModuleTask> indexed = byId == null ? new ConcurrentHashMap<>() : byId;
+            indexed.put(task.getSequence(), task);
+            return indexed;
+        });
+
+        if (task.getTaskId() != -1) {
+            tasksByTaskId.put(task.getTaskId(), task);
+        }
+    }
+
+    /**
+     * Assigns the Bukkit task id to a registered task and indexes it.
+     *
+     * @param task   the task that was scheduled
+     * @param taskId the Bukkit task id it was scheduled with
+     */
+    public void bindTaskId(@NonNull ModuleTask task, int taskId) {
+        task.setTaskId(taskId);
+
+        if (taskId == -1 || !tasks.containsKey(task.getSequence())) {
+            return;
+        }
+
+        tasksByTaskId.put(taskId, task);
+
+        // The task may have been removed between the check and the put, in which case
+        // remove() could have missed the index entry. Drop it so it can't leak.
+        if (!tasks.containsKey(task.getSequence())) {
+            tasksByTaskId.remove(taskId, task);
+        }
+    }
+
+    /**
+     * Removes a task from every index.
+     *
+     * @param task the task to remove
+     * @return {@code true} if the task was registered
+     */
+    public boolean remove(@NonNull ModuleTask task) {
+        if (tasks.remove(task.getSequence()) == null) {
+            return false;
+        }
+
+        tasksById.computeIfPresent(normalize(task.getId()), (key, byId) -> {
+            byId.remove(task.getSequence());
+            return byId.isEmpty() ? null : byId;
+        });
+
+        if (task.getTaskId() != -1) {
+            tasksByTaskId.remove(task.getTaskId(), task);
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes every task registered under the given id.
+     *
+     * @param id the task id, case-insensitive
+     * @return the tasks that were removed
+     */
+    public Collection<ModuleTask> removeById(@NonNull String id) {
+        Map<Long, ModuleTask> removed = tasksById.remove(normalize(id));
+
+        if (removed == null) {
+            return Collections.emptyList();
+        }
+
+        for (ModuleTask task : removed.values()) {
+            tasks.remove(task.getSequence());
+
+            if (task.getTaskId() != -1) {
+                tasksByTaskId.remove(task.getTaskId(), task);
+            }
+        }
+
+        return removed.values();
+    }
+
+    /**
+     * Returns a live, read-only view of the tasks registered under the given id.
+     *
+     * @param id the task id, case-insensitive
+     * @return the matching tasks, or an empty collection
+     */
+    public Collection<ModuleTask> getById(@NonNull String id) {
+        Map<Long, ModuleTask> byId = tasksById.get(normalize(id));
+        return byId == null ? Collections.emptyList() : Collections.unmodifiableCollection(byId.values());
+    }
+
+    public @Nullable ModuleTask getByTaskId(int taskId) {
+        return tasksByTaskId.get(taskId);
+    }
+
+    /**
+     * Returns a live, read-only and weakly consistent view of every registered task.
+     *
+     * @return the registered tasks
+     */
+    public Collection<ModuleTask> getTasks() {
+        return view;
+    }
+
+    /**
+     * Copies the registered tasks into a list sorted by task id, suitable
+     * for paging through in commands.
+     *
+     * @return a sorted snapshot of the registered tasks
+     */
+    public List<ModuleTask> snapshot() {
+        List<ModuleTask> snapshot = new ArrayList<>(tasks.values());
+        snapshot.sort(Comparator.comparing(ModuleTask::getId, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingLong(ModuleTask::getSequence));
+        return snapshot;
+    }
+
+    public boolean contains(@NonNull ModuleTask task) {
+        return tasks.containsKey(task.getSequence());
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    private static String normalize(String id) {
+        return id.toLowerCase(Locale.ROOT);
+    }
+
+}
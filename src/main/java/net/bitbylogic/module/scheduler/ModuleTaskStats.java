@@ -0,0 +1,123 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics for the tasks sharing a task id.
+ * <p></p>
+ * Every run of a {@link ModuleTask} records its wall time here, including the time
+ * spent in the wrapped {@link ModuleRunnable}. Recording is lock-free so tasks on
+ * the main thread and on async threads can share the same instance.
+ */
+public class ModuleTaskStats {
+
+    /**
+     * Upper bounds (exclusive) of the latency histogram buckets, in microseconds.
+     * The last bucket collects every run slower than the final bound.
+     */
+    private static final long[] BUCKET_BOUNDS_MICROS = {100, 500, 1_000, 5_000, 10_000, 50_000, 100_000};
+
+    @Getter
+    private final String id;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder[] histogram = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+    private final LongAdder missed = new LongAdder();
+
+    public ModuleTaskStats(@NonNull String id) {
+        this.id = id;
+
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single run of a task.
+     *
+     * @param nanos the wall time of the run in nanoseconds
+     */
+    public void record(long nanos) {
+        runs.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 0;
+
+        while (bucket < BUCKET_BOUNDS_MICROS.length && micros >= BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+
+        histogram[bucket].increment();
+    }
+
+    /**
+     * Records runs of a fixed-rate task that were skipped because it fell behind schedule.
+     *
+     * @param count the number of skipped runs
+     */
+    public void recordMissed(long count) {
+        missed.add(count);
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMissed() {
+        return missed.sum();
+    }
+
+    public long getAverageNanos() {
+        long count = getRuns();
+        return count == 0 ? 0 : getTotalNanos() / count;
+    }
+
+    /**
+     * Returns the run count of each latency bucket. Bucket {@code i} counts runs
+     * faster than {@link #getBucketBoundsMicros()}{@code [i]}, the last bucket counts the rest.
+     *
+     * @return a copy of the histogram counts
+     */
+    public long[] getHistogram() {
+        long[] counts = new long[histogram.length];
+
+        for (int i = 0; i < histogram.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+
+        return counts;
+    }
+
+    public static long[] getBucketBoundsMicros() {
+        return BUCKET_BOUNDS_MICROS.clone();
+    }
+
+    public void reset() {
+        runs.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        missed.reset();
+
+        for (LongAdder bucket : histogram) {
+            bucket.reset();
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches sync module tasks while they run and reports the ones that exceed their slow task threshold.
+ * <p></p>
+ * A single background thread polls the running tasks. When one passes its threshold the
+ * watchdog captures the stack of the thread running it, while the task is still running,
+ * and logs it through the owning module. A second line is logged with the total time once
+ * the slow task finishes.
+ * <p></p>
+ * The thread stops by itself once nothing has been watched for a second, and is started
+ * again by the next watched run.
+ */
+public class ModuleTaskWatchdog {
+
+    private static final long POLL_INTERVAL_MILLIS = 10L;
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+    private Thread thread;
+
+    /**
+     * Starts watching a task that is about to run on the current thread.
+     *
+     * @param task           the task being run
+     * @param startNanos     the {@link System#nanoTime()} the run started at
+     * @param thresholdNanos how long the run may take before it's reported
+     * @return the watch to pass to {@link #unwatch(Watch, long)} once the run finishes
+     */
+    public Watch watch(@NonNull ModuleTask task, long startNanos, long thresholdNanos) {
+        Watch watch = new Watch(task, Thread.currentThread(), startNanos, thresholdNanos);
+        watches.add(watch);
+        ensureStarted();
+        return watch;
+    }
+
+    /**
+     * Stops watching a task run.
+     *
+     * @param watch        the watch returned when the run started
+     * @param elapsedNanos how long the run took
+     */
+    public void unwatch(@NonNull Watch watch, long elapsedNanos) {
+        watches.remove(watch);
+
+        if (!watch.reported) {
+            return;
+        }
+
+        watch.task.getModuleInstance().log(Level.WARNING, String.format("Slow task '%s' of module '%s' finished after %dms.",
+                watch.task.getId(), watch.task.getModuleInstance().getModuleData().id(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+    }
+
+    /**
+     * Stops the watchdog thread. It is started again the next time a task is watched.
+     */
+    public synchronized void shutdown() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+
+        watches.clear();
+    }
+
+    private synchronized void ensureStarted() {
+        if (thread != null) {
+            return;
+        }
+
+        thread = new Thread(this::poll, "bits-modules-task-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void poll() {
+        long idleSince = System.nanoTime();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            if (!watches.isEmpty()) {
+                idleSince = now;
+            } else if (now - idleSince >= IDLE_TIMEOUT_NANOS && stopIfIdle()) {
+                return;
+            }
+
+            for (Watch watch : watches) {
+                if (watch.reported || now - watch.startNanos < watch.thresholdNanos) {
+                    continue;
+                }
+
+                report(watch, now);
+            }
+        }
+    }
+
+    /**
+     * Clears the thread reference if nothing is being watched, checked under the same lock
+     * {@link #ensureStarted()} takes, so a watch added concurrently always has a thread polling it.
+     *
+     * @return whether the calling poll thread should exit
+     */
+    private synchronized boolean stopIfIdle() {
+        if (!watches.isEmpty()) {
+            return false;
+        }
+
+        if (thread == Thread.currentThread()) {
+            thread = null;
+        }
+
+        return true;
+    }
+
+    private void report(Watch watch, long now) {
+        StackTraceElement[] stack = watch.thread.getStackTrace();
+
+        if (!watches.contains(watch)) {
+            return;
+        }
+
+        watch.reported = true;
+
+        StringBuilder message = new StringBuilder(String.format("Task '%s' of module '%s' has been running for %dms on thread '%s' (threshold: %dms):",
+                watch.task.getId(), watch.task.getModuleInstance().getModuleData().id(),
+                TimeUnit.NANOSECONDS.toMillis(now - watch.startNanos), watch.thread.getName(),
+                TimeUnit.NANOSECONDS.toMillis(watch.thresholdNanos)));
+
+        for (StackTraceElement element : stack) {
+            message.append("\n\tat ").append(element);
+        }
+
+        watch.task.getModuleInstance().log(Level.WARNING, message.toString());
+    }
+
+    public static class Watch {
+
+        private final ModuleTask task;
+        private final Thread thread;
+        private final long startNanos;
+        private final long thresholdNanos;
+
+        private volatile boolean reported;
+
+        private Watch(ModuleTask task, Thread thread, long startNanos, long thresholdNanos) {
+            this.task = task;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.thresholdNanos = thresholdNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single reusable throttle slot for one task id.
+ * <p></p>
+ * The first call runs on the next tick, later calls within the interval collapse into one
+ * trailing run with the newest action once the interval has passed. At most one run is
+ * scheduled for the slot at any time, always of the same reused {@link ModuleTask}, and the
+ * slot is disarmed if that task is cancelled from outside, for example by a drain.
+ */
+class ModuleThrottler {
+
+    private final ModuleScheduler scheduler;
+    private final String id;
+
+    private final ModuleTask task;
+
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private final AtomicReference<Runnable> pending = new AtomicReference<>();
+
+    private volatile long intervalNanos;
+    private volatile long nextAllowedNanos;
+    private volatile boolean cancelled;
+
+    ModuleThrottler(@NonNull ModuleScheduler scheduler, @NonNull String id, boolean async) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.task = scheduler.createSlotTask(id, async, this::fire);
+        this.task.onCancel(() -> armed.set(false));
+    }
+
+    /**
+     * Runs the action at most once per {@code interval} ticks.
+     *
+     * @param interval the minimum time between runs in ticks
+     * @param runnable the action to run, replacing any action still waiting
+     */
+    void call(long interval, @NonNull Runnable runnable) {
+        intervalNanos = Math.max(1, interval) * TimeUnit.MILLISECONDS.toNanos(ModuleScheduler.MILLIS_PER_TICK);
+        pending.set(runnable);
+
+        if (armed.compareAndSet(false, true)) {
+            arm();
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        pending.set(null);
+    }
+
+    private void fire() {
+        if (cancelled) {
+            return;
+        }
+
+        Runnable action = pending.getAndSet(null);
+        nextAllowedNanos = System.nanoTime() + intervalNanos;
+
+        try {
+            if (action != null) {
+                action.run();
+            }
+        } catch (Exception e) {
+            task.getModuleInstance().getPlugin().getLogger().severe("Exception in ModuleTask '" + id + "': " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            armed.set(false);
+
+            if (pending.get() != null && armed.compareAndSet(false, true)) {
+                arm();
+            }
+        }
+    }
+
+    private void arm() {
+        long remaining = nextAllowedNanos - System.nanoTime();
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(ModuleScheduler.MILLIS_PER_TICK);
+        long delayTicks = remaining <= 0 ? 0 : Math.max(1, (remaining + tickNanos - 1) / tickNanos);
+
+        if (scheduler.scheduleSlot(task, delayTicks) == -1) {
+            armed.set(false);
+        }
+    }
+
+}
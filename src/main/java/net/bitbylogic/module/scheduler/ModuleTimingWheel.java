@@ -0,0 +1,311 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import net.bitbylogic.module.BitsModule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * A hierarchical timing wheel that drives all of a module's sync tasks from a single Bukkit task.
+ * <p></p>
+ * The wheel has {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots. Level 0 holds tasks due
+ * within the current 64-tick block, each higher level covers 64 times the range of the one below,
+ * and entries cascade down a level whenever the lower level wraps. Scheduling and cancelling are
+ * constant time, and each tick only touches the slot that is due. Tasks further out than the top
+ * level are parked in an overflow list and re-inserted every time the top level wraps.
+ * <p></p>
+ * Deadlines are measured in server ticks, as reported by {@link ModuleSchedulerPlatform#getCurrentTick()},
+ * so delays behave exactly like the Bukkit scheduler's: a delay below one runs on the next tick,
+ * and a period of zero repeats every tick.
+ * Tasks may be scheduled from any thread; they are handed to the main thread through a queue.
+ * The driving task only runs while something is scheduled, it stops once the wheel is empty
+ * and starts again with the next scheduled task.
+ */
+public class ModuleTimingWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final BitsModule module;
+
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private final List<Entry>[][] wheels;
+    private final List<Entry> overflow = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private List<Entry> spareSlot = new ArrayList<>();
+    private long currentTick = -1;
+
+    private volatile ModuleTaskHandle driver;
+
+    @SuppressWarnings("unchecked")
+    public ModuleTimingWheel(@NonNull BitsModule module) {
+        this.module = module;
+        this.wheels = new List[LEVELS][WHEEL_SIZE];
+
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules a task on the wheel and attaches the resulting handle to it.
+     *
+     * @param task   the task to run
+     * @param delay  the delay in ticks before the first run
+     * @param period the ticks between runs, or a negative value to run once
+     * @return the handle controlling the scheduled task
+     */
+    public ModuleTaskHandle schedule(@NonNull ModuleTask task, long delay, long period) {
+        long normalizedPeriod = period < 0 ? -1 : Math.max(1, period);
+        Entry entry = new Entry(task, module.getScheduler().getPlatform().getCurrentTick() + Math.max(1, delay), normalizedPeriod);
+
+        task.setHandle(entry);
+        pending.incrementAndGet();
+        incoming.add(entry);
+        startDriver();
+        return entry;
+    }
+
+    /**
+     * @return the number of scheduled tasks that haven't completed or been cancelled
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the driving task and drops every scheduled entry.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (driver != null) {
+                driver.cancel();
+                driver = null;
+            }
+        }
+
+        Entry entry;
+
+        while ((entry = incoming.poll()) != null) {
+            entry.cancel();
+        }
+
+        for (List<Entry>[] wheel : wheels) {
+            for (List<Entry> slot : wheel) {
+                slot.forEach(Entry::cancel);
+                slot.clear();
+            }
+        }
+
+        overflow.forEach(Entry::cancel);
+        overflow.clear();
+        currentTick = -1;
+    }
+
+    private void startDriver() {
+        if (driver != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (driver == null) {
+                driver = module.getScheduler().getPlatform().runGlobal(module.getPlugin(), this::tick, 1L, 1L);
+            }
+        }
+    }
+
+    private void tick() {
+        long serverTick = module.getScheduler().getPlatform().getCurrentTick();
+
+        if (currentTick < 0) {
+            currentTick = serverTick - 1;
+        }
+
+        Entry entry;
+
+        while ((entry = incoming.poll()) != null) {
+            if (entry.cancelled) {
+                continue;
+            }
+
+            entry.deadline = Math.max(entry.deadline, currentTick + 1);
+            insert(entry);
+        }
+
+        while (currentTick < serverTick) {
+            currentTick++;
+            cascade();
+            runDueSlot();
+        }
+
+        stopIfIdle();
+    }
+
+    /**
+     * Stops the driving task once nothing is scheduled. The slots then only hold cancelled
+     * entries, so they are cleared and the wheel restarts from the server tick it's driven
+     * again at. A task scheduled meanwhile either sees no driver and starts one, or saw the
+     * old one, in which case the re-check below starts a new one for it.
+     */
+    private void stopIfIdle() {
+        if (pending.get() > 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pending.get() > 0 || driver == null) {
+                return;
+            }
+
+            driver.cancel();
+            driver = null;
+
+            for (List<Entry>[] wheel : wheels) {
+                for (List<Entry> slot : wheel) {
+                    slot.clear();
+                }
+            }
+
+            overflow.clear();
+            currentTick = -1;
+        }
+
+        if (pending.get() > 0) {
+            startDriver();
+        }
+    }
+
+    private void insert(Entry entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+
+            if ((entry.deadline >>> shift) != (currentTick >>> shift)) {
+                continue;
+            }
+
+            wheels[level][(int) ((entry.deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(entry);
+            return;
+        }
+
+        overflow.add(entry);
+    }
+
+    private void cascade() {
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Entry> parked = new ArrayList<>(overflow);
+            overflow.clear();
+            parked.stream().filter(entry -> !entry.cancelled).forEach(this::insert);
+        }
+
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            List<Entry> slot = wheels[level][index];
+
+            if (slot.isEmpty()) {
+                continue;
+            }
+
+            wheels[level][index] = spareSlot;
+
+            for (Entry entry : slot) {
+                if (!entry.cancelled) {
+                    insert(entry);
+                }
+            }
+
+            slot.clear();
+            spareSlot = slot;
+        }
+    }
+
+    private void runDueSlot() {
+        int index = (int) (currentTick & WHEEL_MASK);
+        List<Entry> slot = wheels[0][index];
+
+        if (slot.isEmpty()) {
+            return;
+        }
+
+        wheels[0][index] = spareSlot;
+
+        for (Entry entry : slot) {
+            if (entry.cancelled) {
+                continue;
+            }
+
+            try {
+                entry.task.execute();
+            } catch (Throwable throwable) {
+                module.log(Level.SEVERE, "Task '" + entry.task.getId() + "' threw " + throwable + " on the timing wheel.");
+                throwable.printStackTrace();
+            }
+
+            if (entry.period > 0 && !entry.cancelled) {
+                entry.deadline = currentTick + entry.period;
+                insert(entry);
+                continue;
+            }
+
+            entry.complete();
+        }
+
+        slot.clear();
+        spareSlot = slot;
+    }
+
+    private class Entry implements ModuleTaskHandle {
+
+        private final ModuleTask task;
+        private final long period;
+
+        private long deadline;
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+
+        private Entry(ModuleTask task, long deadline, long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public synchronized void cancel() {
+            if (cancelled || completed) {
+                return;
+            }
+
+            cancelled = true;
+            pending.decrementAndGet();
+        }
+
+        @Override
+        public boolean isActive() {
+            return !cancelled && !completed;
+        }
+
+        private synchronized void complete() {
+            if (completed || cancelled) {
+                return;
+            }
+
+            completed = true;
+            pending.decrementAndGet();
+        }
+
+    }
+
+}
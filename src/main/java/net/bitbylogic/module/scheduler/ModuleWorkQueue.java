@@ -0,0 +1,220 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.module.BitsModule;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * A main-thread work queue that drains once per tick, up to a per-module time budget.
+ * <p></p>
+ * Work that doesn't fit in the current tick's budget carries over to the next tick,
+ * so large jobs (touching thousands of blocks or entities) cost a bounded amount of
+ * time per tick instead of a single long stall. At least one unit of work runs every
+ * tick so the queue always makes progress. Work may be submitted from any thread.
+ * <p></p>
+ * The draining task only runs while work is queued, it stops once the queue is empty and
+ * starts again with the next submission.
+ */
+public class ModuleWorkQueue {
+
+    private static final long DEFAULT_BUDGET_MILLIS = 5L;
+
+    private final BitsModule module;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder carriedOverTicks = new LongAdder();
+
+    private volatile long budgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET_MILLIS);
+
+    @Getter
+    private volatile int peakDepth;
+
+    @Getter
+    private volatile int lastTickProcessed;
+
+    @Getter
+    private volatile long lastTickNanos;
+
+    private volatile ModuleTaskHandle driver;
+
+    public ModuleWorkQueue(@NonNull BitsModule module) {
+        this.module = module;
+    }
+
+    /**
+     * Adds a unit of work to the queue.
+     *
+     * @param work the work to run on the main thread
+     * @return {@code false} if the module is disabled and the work was rejected
+     */
+    public boolean submit(@NonNull Runnable work) {
+        if (!module.isEnabled()) {
+            module.log(Level.WARNING, "Cannot queue work because module is disabled.");
+            return false;
+        }
+
+        queue.add(work);
+        peakDepth = Math.max(peakDepth, depth.incrementAndGet());
+        startDriver();
+        return true;
+    }
+
+    /**
+     * Queues one unit of work per item, applying the action to each item on the main thread.
+     *
+     * @param items  the items to process
+     * @param action the action to apply to each item
+     * @return {@code false} if the module is disabled and the work was rejected
+     */
+    public <T> boolean submitEach(@NonNull Collection<T> items, @NonNull Consumer<? super T> action) {
+        if (!module.isEnabled()) {
+            module.log(Level.WARNING, "Cannot queue work because module is disabled.");
+            return false;
+        }
+
+        for (T item : items) {
+            queue.add(() -> action.accept(item));
+        }
+
+        peakDepth = Math.max(peakDepth, depth.addAndGet(items.size()));
+        startDriver();
+        return true;
+    }
+
+    public long getBudgetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(budgetNanos);
+    }
+
+    /**
+     * Sets how long the queue may run each tick.
+     *
+     * @param budgetMillis the per-tick budget in milliseconds, at least 1
+     */
+    public void setBudgetMillis(long budgetMillis) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMillis));
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * @return how many ticks ended with work left over for the next tick
+     */
+    public long getCarriedOverTicks() {
+        return carriedOverTicks.sum();
+    }
+
+    /**
+     * Stops draining and discards any queued work.
+     *
+     * @return the number of discarded work units
+     */
+    public int shutdown() {
+        synchronized (this) {
+            if (driver != null) {
+                driver.cancel();
+                driver = null;
+            }
+        }
+
+        int discarded = 0;
+
+        while (queue.poll() != null) {
+            discarded++;
+        }
+
+        depth.addAndGet(-discarded);
+        return discarded;
+    }
+
+    private void startDriver() {
+        if (driver != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (driver == null) {
+                driver = module.getScheduler().getPlatform().runGlobal(module.getPlugin(), this::drain, 1L, 1L);
+            }
+        }
+    }
+
+    private void drain() {
+        long startTime = System.nanoTime();
+        long deadline = startTime + budgetNanos;
+        int ran = 0;
+
+        Runnable work;
+
+        while ((work = queue.poll()) != null) {
+            depth.decrementAndGet();
+            ran++;
+
+            try {
+                work.run();
+            } catch (Exception e) {
+                module.log(Level.SEVERE, "Exception in queued work: " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        if (ran > 0) {
+            processed.add(ran);
+        }
+
+        if (!queue.isEmpty()) {
+            carriedOverTicks.increment();
+        }
+
+        lastTickProcessed = ran;
+        lastTickNanos = System.nanoTime() - startTime;
+
+        stopIfIdle();
+    }
+
+    /**
+     * Stops the draining task once the queue is empty. Work submitted meanwhile either sees
+     * no driver and starts one, or saw the old one, in which case the re-check below starts
+     * a new one for it.
+     */
+    private void stopIfIdle() {
+        if (!queue.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!queue.isEmpty() || driver == null) {
+                return;
+            }
+
+            driver.cancel();
+            driver = null;
+        }
+
+        if (!queue.isEmpty()) {
+            startDriver();
+        }
+    }
+
+}
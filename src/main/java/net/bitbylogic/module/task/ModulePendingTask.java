@@ -10,7 +10,10 @@ import net.bitbylogic.module.BitsModule;
  * and ensures the task implementation defines how the module should be processed.
  *
  * @param <T> the type of the module this task is associated with, which must extend {@link BitsModule}
+ * @deprecated No longer used by the manager, wait for modules with
+ * {@link net.bitbylogic.module.ModuleManager#awaitModule(Class)} instead.
  */
+@Deprecated
 @Getter
 @RequiredArgsConstructor
 public abstract class ModulePendingTask<T extends BitsModule> {
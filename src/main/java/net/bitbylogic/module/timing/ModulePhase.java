@@ -0,0 +1,30 @@
+package net.bitbylogic.module.timing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A timed step of a module's lifecycle.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ModulePhase {
+
+    CONSTRUCT("Construct", true),
+    CONFIG_LOAD("Config Load", true),
+    DEPENDENCY_INJECTION("Dependency Injection", true),
+    REGISTER("onRegister", true),
+    ENABLE("onEnable", true),
+    LISTENERS("Listener Registration", true),
+    COMMANDS("Command Registration", true),
+    RELOAD("Reload", false),
+    DISABLE("Disable", false);
+
+    private final String displayName;
+
+    /**
+     * Whether the phase is part of bringing the module up at startup, and counts towards its startup total.
+     */
+    private final boolean startup;
+
+}
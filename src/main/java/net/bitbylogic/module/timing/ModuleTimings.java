@@ -0,0 +1,276 @@
+package net.bitbylogic.module.timing;
+
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the duration of every {@link ModulePhase} of every module.
+ * <p></p>
+ * Startup timings are measured while a module is registered and are kept apart from
+ * runtime timings, which are measured when a module is later enabled, reloaded or
+ * disabled, so toggling a module never changes its startup numbers.
+ * <p></p>
+ * Both kinds of timings are saved to a YAML file, runtime timings in their own section, and
+ * the file written by the previous run is loaded on startup, so each phase can be compared
+ * against the last deployment to spot startup regressions or slower reloads. Modules that
+ * weren't timed during this run keep their previous values in the file.
+ * <p></p>
+ * Saves requested with {@link #requestSave()} are coalesced and written on a background
+ * thread, to a temporary file that is atomically moved over the previous one.
+ */
+public class ModuleTimings {
+
+    private final File file;
+    private final Logger logger;
+
+    private final Map<String, Map<ModulePhase, Long>> current = new ConcurrentHashMap<>();
+    private final Map<String, Map<ModulePhase, Long>> runtime = new ConcurrentHashMap<>();
+    private final Map<String, Map<ModulePhase, Long>> previous = new HashMap<>();
+    private final Map<String, Map<ModulePhase, Long>> previousRuntime = new HashMap<>();
+
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bits-modules-timings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ModuleTimings(@NonNull File file, @NonNull Logger logger) {
+        this.file = file;
+        this.logger = logger;
+
+        load();
+    }
+
+    /**
+     * Records how long a startup phase of a module took, replacing the previous measurement of that phase.
+     *
+     * @param moduleId the module's id
+     * @param phase    the phase that was timed
+     * @param nanos    how long the phase took, in nanoseconds
+     */
+    public void record(@NonNull String moduleId, @NonNull ModulePhase phase, long nanos) {
+        current.computeIfAbsent(normalize(moduleId), key -> new ConcurrentHashMap<>()).put(phase, nanos);
+    }
+
+    /**
+     * Records how long a phase of a module took after it was registered, such as enabling it
+     * again or reloading it. Runtime timings aren't part of the startup total and are saved
+     * separately from the startup timings.
+     *
+     * @param moduleId the module's id
+     * @param phase    the phase that was timed
+     * @param nanos    how long the phase took, in nanoseconds
+     */
+    public void recordRuntime(@NonNull String moduleId, @NonNull ModulePhase phase, long nanos) {
+        runtime.computeIfAbsent(normalize(moduleId), key -> new ConcurrentHashMap<>()).put(phase, nanos);
+    }
+
+    /**
+     * @return the ids of every module timed during this run
+     */
+    public Set<String> getModuleIds() {
+        return Collections.unmodifiableSet(current.keySet());
+    }
+
+    /**
+     * @return the startup phases timed during this run, in nanoseconds
+     */
+    public Map<ModulePhase, Long> getTimings(@NonNull String moduleId) {
+        return copy(current.get(normalize(moduleId)));
+    }
+
+    /**
+     * @return the most recent runtime timing of each phase, in nanoseconds
+     */
+    public Map<ModulePhase, Long> getRuntimeTimings(@NonNull String moduleId) {
+        return copy(runtime.get(normalize(moduleId)));
+    }
+
+    /**
+     * @return the phases loaded from the previous run's file, in nanoseconds
+     */
+    public Map<ModulePhase, Long> getPreviousTimings(@NonNull String moduleId) {
+        return copy(previous.get(normalize(moduleId)));
+    }
+
+    /**
+     * @return the runtime phases loaded from the previous run's file, in nanoseconds
+     */
+    public Map<ModulePhase, Long> getPreviousRuntimeTimings(@NonNull String moduleId) {
+        return copy(previousRuntime.get(normalize(moduleId)));
+    }
+
+    public long getStartupNanos(@NonNull String moduleId) {
+        return startupNanos(current.get(normalize(moduleId)));
+    }
+
+    /**
+     * @return the previous run's startup total, or -1 if the module wasn't timed then
+     */
+    public long getPreviousStartupNanos(@NonNull String moduleId) {
+        Map<ModulePhase, Long> timings = previous.get(normalize(moduleId));
+        return timings == null ? -1 : startupNanos(timings);
+    }
+
+    /**
+     * Schedules a save on the background writer. Requests made before the queued save runs
+     * are written along with it.
+     */
+    public void requestSave() {
+        if (!saveQueued.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            writer.execute(() -> {
+                saveQueued.set(false);
+                save();
+            });
+        } catch (RejectedExecutionException e) {
+            saveQueued.set(false);
+        }
+    }
+
+    /**
+     * Stops the background writer and writes the timings one last time on the calling thread.
+     */
+    public void close() {
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        save();
+    }
+
+    /**
+     * Writes the timings to the file, keeping previous values for modules not timed during this run.
+     * Prefer {@link #requestSave()} on the main thread.
+     */
+    public synchronized void save() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("Saved", System.currentTimeMillis());
+
+        write(config, "Modules", previous, current);
+        write(config, "Runtime", previousRuntime, runtime);
+
+        try {
+            Path target = file.toPath();
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "module-timings", ".yml.tmp");
+
+            try {
+                Files.writeString(temp, config.saveToString(), StandardCharsets.UTF_8);
+
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to save module timings to " + file.getName(), e);
+        }
+    }
+
+    private static void write(YamlConfiguration config, String path, Map<String, Map<ModulePhase, Long>> previous,
+                              Map<String, Map<ModulePhase, Long>> current) {
+        Map<String, Map<ModulePhase, Long>> merged = new TreeMap<>(previous);
+        merged.putAll(current);
+
+        merged.forEach((moduleId, timings) -> timings.forEach((phase, nanos) ->
+                config.set(path + "." + moduleId + "." + phase.name(), nanos / 1_000_000d)));
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+
+        load(config.getConfigurationSection("Modules"), previous);
+        load(config.getConfigurationSection("Runtime"), previousRuntime);
+    }
+
+    private static void load(ConfigurationSection modules, Map<String, Map<ModulePhase, Long>> target) {
+        if (modules == null) {
+            return;
+        }
+
+        for (String moduleId : modules.getKeys(false)) {
+            ConfigurationSection section = modules.getConfigurationSection(moduleId);
+
+            if (section == null) {
+                continue;
+            }
+
+            Map<ModulePhase, Long> timings = new EnumMap<>(ModulePhase.class);
+
+            for (String key : section.getKeys(false)) {
+                try {
+                    ModulePhase phase = ModulePhase.valueOf(key);
+                    timings.put(phase, (long) (section.getDouble(key) * TimeUnit.MILLISECONDS.toNanos(1)));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+
+            target.put(normalize(moduleId), timings);
+        }
+    }
+
+    private static long startupNanos(Map<ModulePhase, Long> timings) {
+        if (timings == null) {
+            return 0;
+        }
+
+        long total = 0;
+
+        for (Map.Entry<ModulePhase, Long> entry : timings.entrySet()) {
+            if (entry.getKey().isStartup()) {
+                total += entry.getValue();
+            }
+        }
+
+        return total;
+    }
+
+    private static Map<ModulePhase, Long> copy(Map<ModulePhase, Long> timings) {
+        Map<ModulePhase, Long> copy = new EnumMap<>(ModulePhase.class);
+
+        if (timings != null) {
+            copy.putAll(timings);
+        }
+
+        return copy;
+    }
+
+    private static String normalize(String moduleId) {
+        return moduleId.toLowerCase(Locale.ROOT);
+    }
+
+}
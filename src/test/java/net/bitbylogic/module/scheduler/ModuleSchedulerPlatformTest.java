@@ -0,0 +1,191 @@
+package net.bitbylogic.module.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ModuleSchedulerPlatformTest {
+
+    @TempDir
+    Path dataFolder;
+
+    private StubSchedulerPlatform platform;
+    private ModuleScheduler scheduler;
+    private TestModule module;
+
+    @BeforeEach
+    void setUp() {
+        JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(ModuleSchedulerPlatformTest.class.getName()));
+
+        module = new TestModule(plugin);
+        module.setEnabled(true);
+
+        platform = new StubSchedulerPlatform(true);
+        scheduler = module.getScheduler();
+        scheduler.setPlatform(platform);
+    }
+
+    @Test
+    void syncTasksRunOnTheGlobalRegion() {
+        AtomicInteger runs = new AtomicInteger();
+
+        scheduler.runTask("global", runs::incrementAndGet);
+        scheduler.runTaskTimer("global-timer", 2, 1, runs::incrementAndGet);
+
+        assertEquals(2, platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).size());
+
+        platform.tick();
+        assertEquals(1, runs.get());
+
+        platform.tick(2);
+        assertEquals(3, runs.get());
+        assertEquals(1, scheduler.getTasksById("global-timer").size());
+        assertTrue(scheduler.getTasksById("global").isEmpty());
+    }
+
+    @Test
+    void locationTasksRunOnTheOwningRegion() {
+        AtomicInteger runs = new AtomicInteger();
+        Location location = new Location(null, 0, 64, 0);
+
+        scheduler.runTask("region", location, runs::incrementAndGet);
+        scheduler.runTaskTimer("region-timer", location, 0, 5, runs::incrementAndGet);
+
+        assertEquals(2, platform.getTasks(StubSchedulerPlatform.Lane.REGION).size());
+        assertTrue(platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).isEmpty());
+
+        platform.tick(6);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void entityTasksRetireWithTheirEntity() {
+        AtomicBoolean valid = new AtomicBoolean(true);
+        Entity entity = mock(Entity.class);
+        when(entity.isValid()).thenAnswer(invocation -> valid.get());
+
+        AtomicInteger runs = new AtomicInteger();
+        int taskId = scheduler.runTaskTimer("follow", entity, 0, 1, runs::incrementAndGet);
+
+        assertNotEquals(-1, taskId);
+        assertEquals(1, platform.getTasks(StubSchedulerPlatform.Lane.ENTITY).size());
+
+        platform.tick(2);
+        assertEquals(2, runs.get());
+
+        valid.set(false);
+        platform.tick();
+
+        assertEquals(2, runs.get());
+        assertTrue(scheduler.getTasksById("follow").isEmpty());
+    }
+
+    @Test
+    void entityTasksAreRejectedForRemovedEntities() {
+        Entity entity = mock(Entity.class);
+        when(entity.isValid()).thenReturn(false);
+
+        assertEquals(-1, scheduler.runTask("removed", entity, () -> fail("Ran for a removed entity.")));
+        assertTrue(scheduler.getTasksById("removed").isEmpty());
+    }
+
+    @Test
+    void asyncTasksRunOffTheServerThreads() {
+        AtomicInteger runs = new AtomicInteger();
+
+        scheduler.runTaskAsync("async", runs::incrementAndGet);
+        scheduler.runTaskTimerAsync("async-timer", 0, 2, runs::incrementAndGet);
+
+        assertEquals(2, platform.getTasks(StubSchedulerPlatform.Lane.ASYNC).size());
+        assertTrue(platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).isEmpty());
+
+        platform.tick(3);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void cancellingATaskCancelsItsPlatformHandle() {
+        AtomicInteger runs = new AtomicInteger();
+
+        scheduler.runTaskTimer("cancelled", 0, 1, runs::incrementAndGet);
+        scheduler.runTaskTimerAsync("cancelled", 0, 1, runs::incrementAndGet);
+
+        platform.tick();
+        assertEquals(2, runs.get());
+
+        scheduler.cancelTask("cancelled");
+
+        assertTrue(platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).getFirst().isCancelled());
+        assertTrue(platform.getTasks(StubSchedulerPlatform.Lane.ASYNC).getFirst().isCancelled());
+        assertEquals(0, platform.getActiveCount());
+
+        platform.tick(2);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void localTaskIdsAreCancelledThroughTheScheduler() {
+        AtomicInteger runs = new AtomicInteger();
+        int taskId = scheduler.runTaskTimer("local", 0, 1, runs::incrementAndGet);
+
+        assertTrue(taskId < -1);
+        assertTrue(scheduler.isQueued(taskId));
+        assertTrue(scheduler.cancelTask(taskId));
+        assertFalse(scheduler.isQueued(taskId));
+        assertFalse(scheduler.cancelTask(taskId));
+
+        platform.tick();
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void cancellingTheTaskOfAFutureFailsTheFuture() {
+        CompletableFuture<String> future = scheduler.supplyAsync("supply", () -> "done");
+
+        scheduler.cancelTask("supply");
+        platform.tick();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertThrows(CancellationException.class, future::join);
+    }
+
+    @Test
+    void shutdownCancelsEveryPlatformTask() {
+        scheduler.runTaskTimer("global", 0, 1, () -> {
+        });
+        scheduler.runTaskTimer("region", new Location(null, 0, 64, 0), 0, 1, () -> {
+        });
+        scheduler.runTaskTimerAsync("async", 0, 1, () -> {
+        });
+
+        scheduler.shutdown();
+
+        assertEquals(0, platform.getActiveCount());
+        assertTrue(scheduler.getTasks().isEmpty());
+    }
+
+    @Test
+    void disabledModulesRejectTasks() {
+        module.setEnabled(false);
+
+        assertEquals(-1, scheduler.runTask("disabled", () -> fail("Ran for a disabled module.")));
+        assertEquals(0, platform.getActiveCount());
+    }
+
+}
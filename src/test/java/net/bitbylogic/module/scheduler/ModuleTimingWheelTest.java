@@ -0,0 +1,180 @@
+package net.bitbylogic.module.scheduler;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ModuleTimingWheelTest {
+
+    @TempDir
+    Path dataFolder;
+
+    private StubSchedulerPlatform platform;
+    private ModuleScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(ModuleTimingWheelTest.class.getName()));
+
+        TestModule module = new TestModule(plugin);
+        module.setEnabled(true);
+
+        platform = new StubSchedulerPlatform(false);
+        scheduler = module.getScheduler();
+        scheduler.setPlatform(platform);
+    }
+
+    @Test
+    void syncTasksShareASingleDriver() {
+        scheduler.runTaskLater("first", 5, () -> {
+        });
+        scheduler.runTaskTimer("second", 1, 1, () -> {
+        });
+        scheduler.runTask("third", () -> {
+        });
+
+        assertEquals(1, platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).size());
+        assertEquals(1, platform.getActiveCount());
+    }
+
+    @Test
+    void delayedTasksRunOnTheirExactTick() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskLater("delayed", 5, runs::incrementAndGet);
+
+        platform.tick(4);
+        assertEquals(0, runs.get());
+
+        platform.tick();
+        assertEquals(1, runs.get());
+        assertTrue(scheduler.getTasksById("delayed").isEmpty());
+    }
+
+    @Test
+    void delaysBelowOneRunOnTheNextTick() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskLater("immediate", 0, runs::incrementAndGet);
+
+        platform.tick();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void tasksCascadeDownFromHigherLevels() {
+        AtomicInteger secondLevel = new AtomicInteger();
+        AtomicInteger thirdLevel = new AtomicInteger();
+
+        scheduler.runTaskLater("second-level", 100, secondLevel::incrementAndGet);
+        scheduler.runTaskLater("third-level", 5000, thirdLevel::incrementAndGet);
+
+        platform.tick(99);
+        assertEquals(0, secondLevel.get());
+
+        platform.tick();
+        assertEquals(1, secondLevel.get());
+
+        platform.tick(4899);
+        assertEquals(0, thirdLevel.get());
+
+        platform.tick();
+        assertEquals(1, thirdLevel.get());
+    }
+
+    @Test
+    void tasksBeyondTheTopLevelWaitInTheOverflow() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskLater("overflow", 20_000_000, runs::incrementAndGet);
+
+        platform.tick();
+        platform.skip(19_999_997);
+        platform.tick();
+        assertEquals(0, runs.get());
+
+        platform.tick();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void stalledTicksAreCaughtUp() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskLater("stalled", 10, runs::incrementAndGet);
+
+        platform.tick();
+        platform.skip(20);
+        platform.tick();
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void repeatingTasksAreReinserted() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskTimer("repeating", 1, 3, runs::incrementAndGet);
+
+        platform.tick(7);
+        assertEquals(3, runs.get());
+        assertEquals(1, scheduler.getTasksById("repeating").size());
+    }
+
+    @Test
+    void cancelledTasksNeverRun() {
+        AtomicInteger runs = new AtomicInteger();
+        int taskId = scheduler.runTaskTimer("cancelled", 2, 1, runs::incrementAndGet);
+
+        platform.tick();
+        assertTrue(scheduler.cancelTask(taskId));
+
+        platform.tick(5);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void theDriverStopsWhenIdleAndRestarts() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.runTaskLater("first", 2, runs::incrementAndGet);
+
+        platform.tick(2);
+        assertEquals(1, runs.get());
+        assertTrue(platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).getFirst().isCancelled());
+        assertEquals(0, platform.getActiveCount());
+
+        scheduler.runTaskLater("second", 3, runs::incrementAndGet);
+        assertEquals(2, platform.getTasks(StubSchedulerPlatform.Lane.GLOBAL).size());
+
+        platform.tick(2);
+        assertEquals(1, runs.get());
+
+        platform.tick();
+        assertEquals(2, runs.get());
+        assertEquals(0, platform.getActiveCount());
+    }
+
+    @Test
+    void anErrorInOneTaskDoesNotStopTheOthers() {
+        AtomicInteger runs = new AtomicInteger();
+
+        scheduler.runTaskLater("failing", 1, () -> {
+            throw new AssertionError("Expected failure.");
+        });
+        scheduler.runTaskLater("healthy", 1, runs::incrementAndGet);
+        scheduler.runTaskTimer("repeating", 1, 1, runs::incrementAndGet);
+
+        platform.tick();
+        assertEquals(2, runs.get());
+
+        platform.tick();
+        assertEquals(3, runs.get());
+    }
+
+}
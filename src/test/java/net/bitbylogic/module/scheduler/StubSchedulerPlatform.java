@@ -0,0 +1,183 @@
+package net.bitbylogic.module.scheduler;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ModuleSchedulerPlatform} that queues tasks instead of handing them to a server.
+ * Tests advance time one tick at a time with {@link #tick()}, which is also the clock the
+ * timing wheel reads, and can check which lane every task was dispatched to. Everything runs
+ * on the calling thread, async tasks included.
+ */
+final class StubSchedulerPlatform implements ModuleSchedulerPlatform {
+
+    private final boolean regionThreaded;
+    private final List<StubTask> tasks = new ArrayList<>();
+
+    private long currentTick;
+
+    StubSchedulerPlatform(boolean regionThreaded) {
+        this.regionThreaded = regionThreaded;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return regionThreaded;
+    }
+
+    @Override
+    public ModuleTaskHandle runGlobal(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        return submit(Lane.GLOBAL, runnable, null, null, delay, period);
+    }
+
+    @Override
+    public ModuleTaskHandle runAt(@NonNull Plugin plugin, @NonNull Location location, @NonNull Runnable runnable, long delay, long period) {
+        return submit(Lane.REGION, runnable, null, null, delay, period);
+    }
+
+    @Override
+    public @Nullable ModuleTaskHandle runFor(@NonNull Plugin plugin, @NonNull Entity entity, @NonNull Runnable runnable,
+                                             @Nullable Runnable retired, long delay, long period) {
+        if (!entity.isValid()) {
+            return null;
+        }
+
+        return submit(Lane.ENTITY, runnable, entity, retired, delay, period);
+    }
+
+    @Override
+    public ModuleTaskHandle runAsync(@NonNull Plugin plugin, @NonNull Runnable runnable, long delay, long period) {
+        return submit(Lane.ASYNC, runnable, null, null, delay, period);
+    }
+
+    @Override
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Moves the clock forward without running anything, as if the server had been stalled.
+     * Tasks that fell due meanwhile run on the next {@link #tick()}.
+     */
+    void skip(long ticks) {
+        currentTick += ticks;
+    }
+
+    /**
+     * Advances one tick and runs every task due on it. Entity tasks whose entity was removed
+     * are retired instead.
+     */
+    void tick() {
+        currentTick++;
+
+        for (StubTask task : new ArrayList<>(tasks)) {
+            if (!task.isActive() || task.nextRun > currentTick) {
+                continue;
+            }
+
+            if (task.entity != null && !task.entity.isValid()) {
+                task.cancel();
+
+                if (task.retired != null) {
+                    task.retired.run();
+                }
+
+                continue;
+            }
+
+            task.runs++;
+            task.runnable.run();
+
+            if (task.period < 0) {
+                task.completed = true;
+                continue;
+            }
+
+            task.nextRun = currentTick + Math.max(1, task.period);
+        }
+    }
+
+    void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * @return every task dispatched to the lane, in submission order
+     */
+    List<StubTask> getTasks(@NonNull Lane lane) {
+        return tasks.stream().filter(task -> task.lane == lane).toList();
+    }
+
+    /**
+     * @return the number of tasks still waiting to run or repeating
+     */
+    long getActiveCount() {
+        return tasks.stream().filter(StubTask::isActive).count();
+    }
+
+    private StubTask submit(Lane lane, Runnable runnable, @Nullable Entity entity, @Nullable Runnable retired, long delay, long period) {
+        StubTask task = new StubTask(lane, runnable, entity, retired, period, currentTick + Math.max(1, delay));
+        tasks.add(task);
+        return task;
+    }
+
+    enum Lane {
+
+        GLOBAL,
+        REGION,
+        ENTITY,
+        ASYNC;
+
+    }
+
+    static final class StubTask implements ModuleTaskHandle {
+
+        private final Lane lane;
+        private final Runnable runnable;
+        private final @Nullable Entity entity;
+        private final @Nullable Runnable retired;
+        private final long period;
+
+        private long nextRun;
+        private int runs;
+        private boolean cancelled;
+        private boolean completed;
+
+        private StubTask(Lane lane, Runnable runnable, @Nullable Entity entity, @Nullable Runnable retired, long period, long nextRun) {
+            this.lane = lane;
+            this.runnable = runnable;
+            this.entity = entity;
+            this.retired = retired;
+            this.period = period;
+            this.nextRun = nextRun;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isActive() {
+            return !cancelled && !completed;
+        }
+
+        int getRuns() {
+            return runs;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package net.bitbylogic.module.scheduler;
+
+import net.bitbylogic.module.BitsModule;
+import net.bitbylogic.module.ModuleData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * An empty module the scheduler tests schedule their tasks for.
+ */
+class TestModule extends BitsModule {
+
+    TestModule(JavaPlugin plugin) {
+        super(plugin, null);
+    }
+
+    @Override
+    public void onRegister() {
+    }
+
+    @Override
+    public void onEnable() {
+    }
+
+    @Override
+    public void onReload() {
+    }
+
+    @Override
+    public void onDisable() {
+    }
+
+    @Override
+    public ModuleData getModuleData() {
+        return new ModuleData("test", "Test", "Module used by the scheduler tests.");
+    }
+
+}